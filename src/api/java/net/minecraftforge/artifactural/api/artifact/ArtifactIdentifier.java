@@ -20,6 +20,7 @@
 package net.minecraftforge.artifactural.api.artifact;
 
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 public interface ArtifactIdentifier {
 
@@ -38,23 +39,28 @@ public interface ArtifactIdentifier {
     String getExtension();
 
     static Predicate<ArtifactIdentifier> groupMatches(String group) {
-        return identifier -> identifier.getGroup().matches(group);
+        Pattern pattern = Pattern.compile(group);
+        return identifier -> pattern.matcher(identifier.getGroup()).matches();
     }
 
     static Predicate<ArtifactIdentifier> nameMatches(String name) {
-        return identifier -> identifier.getName().matches(name);
+        Pattern pattern = Pattern.compile(name);
+        return identifier -> pattern.matcher(identifier.getName()).matches();
     }
 
     static Predicate<ArtifactIdentifier> versionMatches(String version) {
-        return identifier -> identifier.getVersion().matches(version);
+        Pattern pattern = Pattern.compile(version);
+        return identifier -> pattern.matcher(identifier.getVersion()).matches();
     }
 
     static Predicate<ArtifactIdentifier> classifierMatches(String classifier) {
-        return identifier -> identifier.getClassifier().matches(classifier);
+        Pattern pattern = Pattern.compile(classifier);
+        return identifier -> pattern.matcher(identifier.getClassifier()).matches();
     }
 
     static Predicate<ArtifactIdentifier> extensionMatches(String extension) {
-        return identifier -> identifier.getExtension().matches(extension);
+        Pattern pattern = Pattern.compile(extension);
+        return identifier -> pattern.matcher(identifier.getExtension()).matches();
     }
 
     static Predicate<ArtifactIdentifier> groupEquals(String group) {
@@ -19,6 +19,9 @@
 
 package net.minecraftforge.artifactural.api.repository;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -28,6 +31,34 @@ public interface ArtifactProvider<I> {
 
     Artifact getArtifact(I info);
 
+    /**
+     * Looks up many artifacts at once, the default implementation calls {@link #getArtifact(Object)} for each of them in turn.
+     *
+     * @return Every info mapped to its artifact, or {@link Artifact#none()}, in iteration order of the collection
+     */
+    default Map<I, Artifact> getArtifacts(Collection<? extends I> infos) {
+        return Internal.lookup(infos, this::getArtifact, null);
+    }
+
+    /**
+     * Looks up many artifacts at once, the default implementation calls {@link #getArtifact(Object)} for each of them concurrently
+     * on the executor, or calls {@link #getArtifacts(Collection)} without one. Tasks the executor rejects run on the calling thread.
+     * Providers that can answer for many coordinates in one go, such as from a single manifest, should override both overloads.
+     *
+     * @return Every info mapped to its artifact, or {@link Artifact#none()}, in iteration order of the collection
+     */
+    default Map<I, Artifact> getArtifacts(Collection<? extends I> infos, Executor executor) {
+        return executor == null ? getArtifacts(infos) : Internal.lookup(infos, this::getArtifact, executor);
+    }
+
+    /**
+     * Estimates how much work {@link #getArtifact(Object)} would be for this info, without doing it.
+     * Providers that generate or download artifacts should return {@link LookupCost#EXPENSIVE}.
+     */
+    default LookupCost estimateCost(I info) {
+        return LookupCost.UNKNOWN;
+    }
+
     interface Builder<S, I> {
 
         Builder<S, I> filter(Predicate<I> filter);
@@ -36,10 +67,25 @@ public interface ArtifactProvider<I> {
 
         Complete<S, I> provide(ArtifactProvider<I> provider);
 
+        /**
+         * Adds a provider that is probed before every provider with a lower priority.
+         * Providers with equal priority are probed in the order they were added, the default priority is 0.
+         */
+        default Complete<S, I> provide(ArtifactProvider<I> provider, int priority) {
+            return provide(provider);
+        }
+
         interface Complete<S, I> extends ArtifactProvider<S> {
 
             Complete<S, I> provide(ArtifactProvider<I> provider);
 
+            /**
+             * @see Builder#provide(ArtifactProvider, int)
+             */
+            default Complete<S, I> provide(ArtifactProvider<I> provider, int priority) {
+                return provide(provider);
+            }
+
         }
 
     }
@@ -0,0 +1,76 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.api.repository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+
+final class Internal {
+
+    // Looks up every key on its own, concurrently on the executor if there is one, in turn otherwise
+    static <K> Map<K, Artifact> lookup(Collection<? extends K> keys, Function<K, Artifact> lookup, Executor executor) {
+        Map<K, Artifact> ret = new LinkedHashMap<>();
+        if (executor == null) {
+            for (K key : keys)
+                ret.put(key, lookup.apply(key));
+            return ret;
+        }
+
+        Map<K, FutureTask<Artifact>> tasks = new LinkedHashMap<>();
+        try {
+            for (K key : keys) {
+                if (tasks.containsKey(key))
+                    continue;
+                FutureTask<Artifact> task = new FutureTask<>(() -> lookup.apply(key));
+                tasks.put(key, task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run(); // Saturated or shut down, look it up on this thread instead
+                }
+            }
+            for (Map.Entry<K, FutureTask<Artifact>> entry : tasks.entrySet())
+                ret.put(entry.getKey(), entry.getValue().get());
+            return ret;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (FutureTask<Artifact> task : tasks.values())
+                task.cancel(true);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.api.repository;
+
+/**
+ * How much work looking up an artifact is expected to take, used to let build tools ask cheaper sources first.
+ */
+public enum LookupCost {
+    /** Nothing is known about the cost. */
+    UNKNOWN,
+    /** The artifact already exists or can be found without generating anything. */
+    CHEAP,
+    /** Providing the artifact may run a generator, download or transformation. */
+    EXPENSIVE;
+
+    /**
+     * Combines the costs of looking in two places, the result is as expensive as the most expensive of them.
+     */
+    public LookupCost max(LookupCost other) {
+        if (this == EXPENSIVE || other == EXPENSIVE)
+            return EXPENSIVE;
+        if (this == UNKNOWN || other == UNKNOWN)
+            return UNKNOWN;
+        return CHEAP;
+    }
+}
@@ -20,6 +20,10 @@
 package net.minecraftforge.artifactural.api.repository;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import net.minecraftforge.artifactural.api.artifact.Artifact;
 import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
@@ -28,12 +32,48 @@ public interface Repository {
 
     Artifact getArtifact(ArtifactIdentifier identifier);
 
+    /**
+     * Looks up many artifacts at once. The default implementation calls {@link #getArtifact(ArtifactIdentifier)} for each of them in turn.
+     *
+     * @param identifiers Identifiers to look up
+     * @return Every identifier mapped to its artifact, or {@link Artifact#none()}, in iteration order of the collection
+     */
+    default Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers) {
+        return Internal.lookup(identifiers, this::getArtifact, null);
+    }
+
+    /**
+     * Looks up many artifacts at once. The default implementation calls {@link #getArtifact(ArtifactIdentifier)} for each of them concurrently
+     * on the executor, or calls {@link #getArtifacts(Collection)} without one. There is no shared default pool, lookups often block on I/O
+     * and would starve unrelated work on it. Repositories that can do better, such as with a single remote request, should override both overloads.
+     *
+     * @param identifiers Identifiers to look up
+     * @param executor Runs the lookups, tasks it rejects run on the calling thread. May be null.
+     * @return Every identifier mapped to its artifact, or {@link Artifact#none()}, in iteration order of the collection
+     */
+    default Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers, Executor executor) {
+        return executor == null ? getArtifacts(identifiers) : Internal.lookup(identifiers, this::getArtifact, executor);
+    }
+
+    /**
+     * Estimates how much work {@link #getArtifact(ArtifactIdentifier)} would be for this identifier, without doing it.
+     *
+     * @param identifier Identifier
+     * @return The estimated cost, or {@link LookupCost#UNKNOWN} if you don't know.
+     */
+    default LookupCost estimateCost(ArtifactIdentifier identifier) {
+        return LookupCost.UNKNOWN;
+    }
+
     /**
      * Returns a file in maven-metadata.xml format for the specified artifact,
      * this is used by gradle to list all known versions, so that it can resolve wildcard
      * dependencies such as foo:bar:1.+
      *
-     * @param group Group
+     * Older versions of the Gradle adapter passed the group as a slash separated path missing its last character,
+     * and the name with a leading slash. Implementations that worked around that need to take the plain values now.
+     *
+     * @param group Group, dot separated such as {@code net.minecraftforge}
      * @param name Artifact name
      * @return maven-metadata.xml file listing all versions of the artifact this repo can provide. Or null if you don't want to list any.
      */
@@ -41,4 +81,28 @@ public interface Repository {
         return null;
     }
 
+    /**
+     * Lists the versions of an artifact this repo can provide, oldest first.
+     * This is used to answer directory listings, which gradle uses to resolve dynamic versions when there is no maven-metadata.xml.
+     *
+     * @param group Group
+     * @param name Artifact name
+     * @return The versions, or an empty stream if you don't want to list any.
+     */
+    default Stream<String> listVersions(String group, String name) {
+        return Stream.empty();
+    }
+
+    /**
+     * Lists the file names this repo can provide for a version of an artifact, such as {@code name-1.0.jar} and {@code name-1.0-sources.jar}, in sorted order.
+     *
+     * @param group Group
+     * @param name Artifact name
+     * @param version Version
+     * @return The file names, or an empty stream if you don't want to list any.
+     */
+    default Stream<String> listFiles(String group, String name, String version) {
+        return Stream.empty();
+    }
+
 }
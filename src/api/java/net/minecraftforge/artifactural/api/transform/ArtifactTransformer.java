@@ -62,6 +62,12 @@ public interface ArtifactTransformer {
                 return other.withInfo(current.withInfo(metadata));
             }
 
+            @Override
+            public ArtifactTransformer andThen(ArtifactTransformer next) {
+                // Keep chains right nested, so the last stage is offered to the next one and stages that can fuse get the chance to
+                return current.andThen(other.andThen(next));
+            }
+
         };
     }
 
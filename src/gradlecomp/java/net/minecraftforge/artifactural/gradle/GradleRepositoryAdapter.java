@@ -22,15 +22,23 @@ package net.minecraftforge.artifactural.gradle;
 import net.minecraftforge.artifactural.api.artifact.Artifact;
 import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
 import net.minecraftforge.artifactural.api.artifact.MissingArtifactException;
+import net.minecraftforge.artifactural.api.repository.LookupCost;
 import net.minecraftforge.artifactural.api.repository.Repository;
 import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
+import net.minecraftforge.artifactural.base.cache.ArtifactCacheBase;
 import net.minecraftforge.artifactural.base.cache.LocatedArtifactCache;
+import net.minecraftforge.artifactural.base.repository.MavenPath;
+import net.minecraftforge.artifactural.base.repository.ProviderScope;
+import net.minecraftforge.artifactural.base.repository.Scoped;
+import net.minecraftforge.artifactural.base.util.AtomicFiles;
+import net.minecraftforge.artifactural.base.util.XmlText;
 
 import org.gradle.api.artifacts.ComponentMetadataSupplierDetails;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
+import org.gradle.api.artifacts.repositories.RepositoryContentDescriptor;
 import org.gradle.api.internal.artifacts.BaseRepositoryFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
@@ -78,18 +86,24 @@ import org.gradle.util.GradleVersion;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class GradleRepositoryAdapter extends AbstractArtifactRepository implements ResolutionAwareRepository {
 
-    private static final Pattern URL_PATTERN = Pattern.compile(
-            "^(?<group>\\S+(?:/\\S+)*)/(?<name>\\S+)/(?<version>\\S+)/" +
-                    "\\2-\\3(?:-(?<classifier>[^.\\s]+))?\\.(?<extension>\\S+)$");
-
+    /**
+     * Creates the repository and adds it to the handler.
+     * If the repository is {@link Scoped} and the caller already {@link Scoped#freeze() froze} it, Gradle is told to only ask it
+     * for coordinates inside its scopes. Nothing is frozen here, so providers may still be added afterwards, the repository is then simply not filtered.
+     */
     public static GradleRepositoryAdapter add(RepositoryHandler handler, String name, File local, Repository repository) {
         BaseRepositoryFactory factory = ReflectionUtils.get(handler, "repositoryFactory"); // We reflect here and create it manually so it DOESN'T get attached.
         DefaultMavenLocalArtifactRepository maven = (DefaultMavenLocalArtifactRepository)factory.createMavenLocalRepository(); // We use maven local because it bypasses the caching and coping to .m2
@@ -111,10 +125,34 @@ public class GradleRepositoryAdapter extends AbstractArtifactRepository implemen
         }
 
         repo.setName(name);
+        if (GradleVersion.current().compareTo(GradleVersion.version("5.1")) >= 0) {
+            // Content filtering was added in 5.1. The filter is built once, so scopes are only reported once the caller froze them
+            List<ProviderScope> scopes = Scoped.of(repository);
+            if (!scopes.isEmpty() && scopes.stream().noneMatch(ProviderScope::isAll))
+                repo.content(content -> scopes.forEach(scope -> include(content, scope)));
+        }
         handler.add(repo);
         return repo;
     }
 
+    // Includes are additive, so each scope adds its group and name combinations and Gradle skips us for everything else
+    private static void include(RepositoryContentDescriptor content, ProviderScope scope) {
+        List<String> groups = new ArrayList<>();
+        scope.getGroups().forEach(group -> groups.add(Pattern.quote(group)));
+        scope.getGroupPrefixes().forEach(prefix -> groups.add(Pattern.quote(prefix) + "(\\..*)?"));
+        if (groups.isEmpty())
+            groups.add(".*");
+
+        for (String group : groups) {
+            if (scope.getNames().isEmpty()) {
+                content.includeGroupByRegex(group);
+            } else {
+                for (String module : scope.getNames())
+                    content.includeModuleByRegex(group, Pattern.quote(module));
+            }
+        }
+    }
+
     private final Repository repository;
     private final DefaultMavenLocalArtifactRepository local;
     private final String root;
@@ -286,7 +324,8 @@ public class GradleRepositoryAdapter extends AbstractArtifactRepository implemen
 
                     @Override
                     public MetadataFetchingCost estimateMetadataFetchingCost(ModuleComponentIdentifier moduleComponentIdentifier) {
-                        return delegate.estimateMetadataFetchingCost(moduleComponentIdentifier);
+                        MetadataFetchingCost cost = repo.estimateCost(moduleComponentIdentifier);
+                        return cost != null ? cost : delegate.estimateMetadataFetchingCost(moduleComponentIdentifier);
                     }
                 };
             }
@@ -326,6 +365,8 @@ public class GradleRepositoryAdapter extends AbstractArtifactRepository implemen
 
     private class GeneratingFileResourceRepository implements FileResourceRepository {
         private final FileSystem fileSystem = FileSystems.getDefault();
+        // Gradle asks for the same paths many times per resolution, remember the answers while their files are unchanged
+        private final Map<String, Memo> memo = new ConcurrentHashMap<>();
         private void debug(String message) {
             //System.out.println(message);
         }
@@ -368,40 +409,151 @@ public class GradleRepositoryAdapter extends AbstractArtifactRepository implemen
         }
 
         private LocallyAvailableExternalResource findArtifact(String path) {
+            Memo hit = memo.get(path);
+            if (hit != null && hit.isCurrent()) {
+                debug("  Memoized: " + path);
+                return hit.resource;
+            }
+            return resolve(path);
+        }
+
+        // FAST if this resolution already produced the module's files, otherwise whatever the repository says, null if it doesn't know
+        private MetadataFetchingCost estimateCost(ModuleComponentIdentifier id) {
+            String base = root + id.getGroup().replace('.', '/') + '/' + id.getModule() + '/' + id.getVersion() + '/' + id.getModule() + '-' + id.getVersion();
+            for (String extension : new String[] { ".pom", ".jar" }) {
+                Memo hit = memo.get(base + extension);
+                if (hit != null && hit.present && hit.isCurrent())
+                    return MetadataFetchingCost.FAST;
+            }
+            LookupCost cost = repository.estimateCost(new SimpleArtifactIdentifier(id.getGroup(), id.getModule(), id.getVersion(), null, "jar"));
+            switch (cost) {
+                case CHEAP:     return MetadataFetchingCost.CHEAP;
+                case EXPENSIVE: return MetadataFetchingCost.EXPENSIVE;
+                default:        return null;
+            }
+        }
+
+        // Only artifacts and paths we can never serve are remembered. Metadata and listings can change as providers declare versions,
+        // and an artifact the providers do not have yet may be generated later in the build
+        private LocallyAvailableExternalResource remember(String path, LocalFileStandInExternalResource resource, boolean present) {
+            memo.put(path, new Memo(resource, present));
+            return resource;
+        }
+
+        private LocallyAvailableExternalResource resolve(String path) {
             if (path.startsWith(root)) {
                 String relative = path.substring(root.length());
                 debug("  Relative: " + relative);
-                Matcher matcher = URL_PATTERN.matcher(relative);
-                if (matcher.matches()) {
-                    ArtifactIdentifier identifier = new SimpleArtifactIdentifier(
-                        matcher.group("group").replace('/', '.'),
-                        matcher.group("name"),
-                        matcher.group("version"),
-                        matcher.group("classifier"),
-                        matcher.group("extension"));
+                MavenPath parsed = MavenPath.parse(relative);
+                if (parsed.getKind() == MavenPath.Kind.CHECKSUM) {
+                    LocalFileStandInExternalResource checksum = findChecksum(parsed);
+                    if (checksum != null)
+                        return remember(path, checksum, true);
+                }
+                if (parsed.isVersioned()) {
+                    ArtifactIdentifier identifier = parsed.toIdentifier();
                     Artifact artifact = repository.getArtifact(identifier);
-                    return wrap(artifact, identifier);
-                } else if (relative.endsWith("maven-metadata.xml")) {
-                    String tmp = relative.substring(0, relative.length() - "maven-metadata.xml".length() - 1);
-                    int idx = tmp.lastIndexOf('/');
-                    if (idx != -1) {
-                        File ret = repository.getMavenMetadata(tmp.substring(0, idx - 1), tmp.substring(idx));
-                        if (ret != null) {
-                            return new LocalFileStandInExternalResource(ret, fileSystem);
-                        }
+                    if (!artifact.isPresent() && parsed.getKind() == MavenPath.Kind.POM && parsed.getClassifier() == null) {
+                        LocalFileStandInExternalResource pom = synthesizePom(parsed);
+                        if (pom != null)
+                            return remember(path, pom, true);
                     }
-                } else if (relative.endsWith("/")) {
-                    debug("    Directory listing not supported");
+                    LocalFileStandInExternalResource ret = wrap(artifact, identifier);
+                    return artifact.isPresent() ? remember(path, ret, true) : ret;
+                } else if (parsed.getKind() == MavenPath.Kind.METADATA) {
+                    File ret = repository.getMavenMetadata(parsed.getGroup(), parsed.getName());
+                    if (ret != null) {
+                        return new LocalFileStandInExternalResource(ret, fileSystem);
+                    }
+                } else if (parsed.getKind() == MavenPath.Kind.DIRECTORY) {
+                    return new ListingResource(new File(path), relative);
                 } else {
                     log("  Matcher Failed: " + relative);
+                    return remember(path, new LocalFileStandInExternalResource(new File(path), fileSystem), false);
                 }
             } else {
                 log("Unknown root: " + path);
+                return remember(path, new LocalFileStandInExternalResource(new File(path), fileSystem), false);
             }
             return new LocalFileStandInExternalResource(new File(path), fileSystem);
         }
 
-        private LocallyAvailableExternalResource wrap(Artifact artifact, ArtifactIdentifier id) {
+        // Answers checksums from the digests stored next to the cached artifact, instead of Gradle hashing it again
+        private LocalFileStandInExternalResource findChecksum(MavenPath parsed) {
+            Artifact artifact = repository.getArtifact(parsed.toChecksummedIdentifier());
+            if (!artifact.isPresent())
+                return null;
+            Artifact.Cached cached = artifact.optionallyCache(cache);
+            try {
+                return new LocalFileStandInExternalResource(ArtifactCacheBase.getChecksum(cached.asFile(), parsed.getChecksum()), fileSystem);
+            } catch (MissingArtifactException | IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /*
+         * Without a POM Gradle resolves the module as missing, which the access wrapper turns into a changing module that is resolved again every build.
+         * So for modules whose jar we can provide, write a minimal POM next to the cached jar. It lives in the jar's metadata hash directory
+         * and names that hash, so it stays the same file until the jar's inputs change. A file that does not match what we would write,
+         * left over from an older version or edited by hand, is replaced.
+         */
+        private LocalFileStandInExternalResource synthesizePom(MavenPath parsed) {
+            ArtifactIdentifier identifier = new SimpleArtifactIdentifier(parsed.getGroup(), parsed.getName(), parsed.getVersion(), null, "jar").intern();
+            Artifact jar = repository.getArtifact(identifier);
+            if (!jar.isPresent())
+                return null;
+
+            File pom = new File(cache.getPath(jar).getParentFile(), parsed.getName() + '-' + parsed.getVersion() + ".pom");
+            String content =
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n" +
+                "  <modelVersion>4.0.0</modelVersion>\n" +
+                "  <groupId>" + XmlText.escape(parsed.getGroup()) + "</groupId>\n" +
+                "  <artifactId>" + XmlText.escape(parsed.getName()) + "</artifactId>\n" +
+                "  <version>" + XmlText.escape(parsed.getVersion()) + "</version>\n" +
+                "  <packaging>jar</packaging>\n" +
+                "  <description>Generated by Artifactural for metadata " + jar.getMetadata().getHash() + "</description>\n" +
+                "</project>\n";
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            try {
+                if (pom.exists() && Arrays.equals(Files.readAllBytes(pom.toPath()), data))
+                    return new LocalFileStandInExternalResource(pom, fileSystem);
+                AtomicFiles.write(pom, data);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return new LocalFileStandInExternalResource(pom, fileSystem);
+        }
+
+        // Lists a version directory as the files the repository declares in it, or a module directory as its versions
+        private List<String> listIndexed(String relative) {
+            String[] parts = (relative.endsWith("/") ? relative.substring(0, relative.length() - 1) : relative).split("/");
+            int len = parts.length;
+            List<String> ret = Collections.emptyList();
+            if (len >= 3)
+                ret = repository.listFiles(String.join(".", Arrays.copyOf(parts, len - 2)), parts[len - 2], parts[len - 1]).collect(Collectors.toList());
+            if (ret.isEmpty() && len >= 2)
+                ret = repository.listVersions(String.join(".", Arrays.copyOf(parts, len - 1)), parts[len - 1]).collect(Collectors.toList());
+            return ret;
+        }
+
+        private class ListingResource extends LocalFileStandInExternalResource {
+            private final String relative;
+
+            private ListingResource(File file, String relative) {
+                super(file, fileSystem);
+                this.relative = relative;
+            }
+
+            @Override
+            public List<String> list() {
+                List<String> ret = listIndexed(relative);
+                debug("    Listing " + relative + ": " + ret);
+                return ret.isEmpty() ? super.list() : ret;
+            }
+        }
+
+        private LocalFileStandInExternalResource wrap(Artifact artifact, ArtifactIdentifier id) {
             if (!artifact.isPresent())
                 return new LocalFileStandInExternalResource(cache.getPath(artifact), fileSystem);
             Artifact.Cached cached = artifact.optionallyCache(cache);
@@ -411,6 +563,26 @@ public class GradleRepositoryAdapter extends AbstractArtifactRepository implemen
                 throw new RuntimeException(e);
             }
         }
+
+        private class Memo {
+            private final LocalFileStandInExternalResource resource;
+            private final boolean present;
+            private final long modified;
+
+            private Memo(LocalFileStandInExternalResource resource, boolean present) {
+                this.resource = resource;
+                this.present = present;
+                this.modified = present ? resource.getFile().lastModified() : 0;
+            }
+
+            // A file that was deleted, replaced or only written after we saw it needs resolving again
+            private boolean isCurrent() {
+                if (!present)
+                    return true;
+                long current = resource.getFile().lastModified();
+                return current != 0 && current == modified;
+            }
+        }
     }
 
     //TODO: Make this a artifact provider interface with a proper API so we dont have direct reference to GradleRepoAdapter in consumers.
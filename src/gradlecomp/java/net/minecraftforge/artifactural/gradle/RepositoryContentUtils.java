@@ -20,6 +20,7 @@
 package net.minecraftforge.artifactural.gradle;
 
 import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
@@ -28,8 +29,20 @@ import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.internal.artifacts.repositories.ArtifactResolutionDetails;
 import org.gradle.api.internal.artifacts.repositories.ContentFilteringRepository;
 import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.Actions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RepositoryContentUtils {
+    // Results per content filter and module version. Gradle locks a repository's content descriptor the first time it hands out the filter,
+    // and returns that same filter from then on, so a filter never changes under its results. Weak keys drop them with the build that owns the filter.
+    private static final Map<Action<?>, Map<SimpleArtifactIdentifier, Boolean>> CACHE = new WeakHashMap<>();
 
     /**
      * Checks if a repository is filtered to exclude a given artifact.
@@ -40,16 +53,59 @@ public class RepositoryContentUtils {
      * @return {@code true} if the repository has a content filter that excludes the given artifact.
      */
     public static boolean contentFilterExcludes(ArtifactRepository repository, ArtifactIdentifier artifact) {
-        if (repository instanceof ContentFilteringRepository) {
-            //Check if the repo is configured in such a way as to support this artifact or not
-            Action<? super ArtifactResolutionDetails> contentFilter = ((ContentFilteringRepository) repository).getContentFilter();
-            ContentResolutionTracker details = new ContentResolutionTracker(artifact);
-            contentFilter.execute(details);
-            //Return whether the resolution details match the content filter
-            return details.wontBeFound;
+        if (!(repository instanceof ContentFilteringRepository))
+            return false;
+        Action<? super ArtifactResolutionDetails> contentFilter = ((ContentFilteringRepository) repository).getContentFilter();
+        // Repositories without filters share this one, which would otherwise keep its results alive for as long as the daemon
+        if (contentFilter == Actions.doNothing())
+            return false;
+        // Filters only see the module version, so every classifier and extension shares one result
+        SimpleArtifactIdentifier key = new SimpleArtifactIdentifier(artifact.getGroup(), artifact.getName(), artifact.getVersion(), null, null);
+        return getCache(contentFilter).computeIfAbsent(key, k -> evaluate(contentFilter, artifact));
+    }
+
+    /**
+     * Checks many artifacts against many repositories at once.
+     *
+     * @param repositories Repositories that may have filtering.
+     * @param artifacts    Artifacts to test.
+     *
+     * @return Every artifact mapped to the repositories whose content filter does not exclude it, in the order of the given repositories.
+     */
+    public static Map<ArtifactIdentifier, List<ArtifactRepository>> findCandidates(Collection<? extends ArtifactRepository> repositories, Collection<? extends ArtifactIdentifier> artifacts) {
+        Map<ArtifactIdentifier, List<ArtifactRepository>> ret = new LinkedHashMap<>();
+        for (ArtifactIdentifier artifact : artifacts)
+            ret.put(artifact, new ArrayList<>(repositories.size()));
+        for (ArtifactRepository repository : repositories) {
+            for (Map.Entry<ArtifactIdentifier, List<ArtifactRepository>> entry : ret.entrySet()) {
+                if (!contentFilterExcludes(repository, entry.getKey()))
+                    entry.getValue().add(repository);
+            }
         }
-        //If it can't be filtered then it can't be excluded
-        return false;
+        return ret;
+    }
+
+    /**
+     * Forgets all remembered results. They are already dropped together with their filter, so this only frees memory early.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static Map<SimpleArtifactIdentifier, Boolean> getCache(Action<?> contentFilter) {
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(contentFilter, k -> new ConcurrentHashMap<>());
+        }
+    }
+
+    private static boolean evaluate(Action<? super ArtifactResolutionDetails> contentFilter, ArtifactIdentifier artifact) {
+        //Check if the repo is configured in such a way as to support this artifact or not
+        ContentResolutionTracker details = new ContentResolutionTracker(artifact);
+        contentFilter.execute(details);
+        //Return whether the resolution details match the content filter
+        return details.wontBeFound;
     }
 
     private static class ContentResolutionTracker implements ArtifactResolutionDetails {
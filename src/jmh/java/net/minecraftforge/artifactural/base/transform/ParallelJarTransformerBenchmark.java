@@ -0,0 +1,147 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.artifact.ArtifactType;
+import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
+import net.minecraftforge.artifactural.base.artifact.StreamableArtifact;
+
+/**
+ * How {@link ParallelJarTransformer} scales with the number of threads, against {@link StreamingJarTransformer} on one thread.
+ * Jars held in memory take the streaming path, jars on disk are rewritten with {@link JarRewriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParallelJarTransformerBenchmark {
+    private static final ArtifactIdentifier IDENTIFIER = new SimpleArtifactIdentifier("net.minecraftforge", "benchmark", "1.0", null, "jar");
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "memory", "file" })
+    public String source;
+
+    @Param({ "2000" })
+    public int entries;
+
+    private ForkJoinPool pool;
+    private File file;
+    private Artifact input;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(threads);
+        byte[] jar = createJar(entries);
+        if (source.equals("file")) {
+            file = File.createTempFile("benchmark", ".jar");
+            Files.write(file.toPath(), jar);
+            input = StreamableArtifact.ofFile(IDENTIFIER, ArtifactType.BINARY, file);
+        } else {
+            input = StreamableArtifact.ofBytes(IDENTIFIER, ArtifactType.BINARY, jar);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        if (file != null)
+            file.delete();
+    }
+
+    @Benchmark
+    public long parallel() throws IOException {
+        return drain(input.apply(new ParallelJarTransformer(ParallelJarTransformerBenchmark::transform, pool)));
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        return drain(input.apply(StreamingTransformer.ofEntries(ParallelJarTransformerBenchmark::transform)));
+    }
+
+    // Touches every byte a few times, standing in for a class rewriter
+    private static byte[] transform(String name, byte[] data) {
+        if (!name.endsWith(".class"))
+            return data;
+        byte[] ret = data.clone();
+        for (int round = 0; round < 8; round++) {
+            for (int x = 1; x < ret.length; x++)
+                ret[x] ^= (byte)(ret[x - 1] * 31 + round);
+        }
+        return ret;
+    }
+
+    private static long drain(Artifact artifact) throws IOException {
+        long ret = 0;
+        byte[] buf = new byte[8192];
+        try (InputStream in = artifact.openStream()) {
+            int read;
+            while ((read = in.read(buf)) != -1)
+                ret += read;
+        }
+        return ret;
+    }
+
+    // Entries compress about as well as real class files, repeated runs of a small vocabulary
+    private static byte[] createJar(int entries) throws IOException {
+        Random random = new Random(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int x = 0; x < entries; x++) {
+                zip.putNextEntry(new ZipEntry("net/minecraftforge/benchmark/Class" + x + ".class"));
+                byte[] data = new byte[4096 + random.nextInt(8192)];
+                for (int y = 0; y < data.length; y++)
+                    data[y] = (byte)('a' + random.nextInt(16));
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
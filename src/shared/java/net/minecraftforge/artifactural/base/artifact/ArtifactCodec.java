@@ -0,0 +1,283 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.artifact;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, versioned binary format for {@link ArtifactIdentifier}s and {@link ArtifactMetadata}.
+ *
+ * A stream starts with a magic number and format version, followed by any number of records. Integers are unsigned varints.
+ * Groups, names, classifiers, extensions and metadata keys are written in full only the first time they appear in a stream,
+ * later occurrences refer back to them, so the ones repeated across many records cost a byte or two each.
+ * Versions and metadata values are mostly unique, they are always written in full so they do not fill the table.
+ */
+public class ArtifactCodec {
+    public static final int VERSION = 2;
+    private static final byte[] MAGIC = { 'A', 'R', 'T', 'F' };
+
+    public enum Type {
+        IDENTIFIER, METADATA
+    }
+
+    // String references: 0 is null, 1 is a new string that follows inline, anything else is an index into the table plus 2
+    private static final int NULL = 0;
+    private static final int INLINE = 1;
+    // Strings past this many are written in full, so a stream of distinct strings can not grow the table without bound
+    private static final int MAX_STRINGS = 1 << 16;
+
+    public static byte[] encode(ArtifactIdentifier identifier) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new Writer(out)) {
+            writer.write(identifier);
+        } catch (IOException e) {
+            throw new RuntimeException(e); // Never happens
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(ArtifactMetadata metadata) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new Writer(out)) {
+            writer.write(metadata);
+        } catch (IOException e) {
+            throw new RuntimeException(e); // Never happens
+        }
+        return out.toByteArray();
+    }
+
+    public static ArtifactIdentifier decodeIdentifier(byte[] data) throws IOException {
+        try (Reader reader = new Reader(new ByteArrayInputStream(data))) {
+            return reader.readIdentifier();
+        }
+    }
+
+    public static ArtifactMetadata decodeMetadata(byte[] data) throws IOException {
+        try (Reader reader = new Reader(new ByteArrayInputStream(data))) {
+            return reader.readMetadata();
+        }
+    }
+
+    public static class Writer implements Closeable {
+        private final OutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new BufferedOutputStream(out);
+            this.out.write(MAGIC);
+            writeVarInt(VERSION);
+        }
+
+        public void write(ArtifactIdentifier identifier) throws IOException {
+            writeVarInt(Type.IDENTIFIER.ordinal());
+            writeString(identifier.getGroup(), true);
+            writeString(identifier.getName(), true);
+            writeString(identifier.getVersion(), false);
+            writeString(identifier.getClassifier(), true);
+            writeString(identifier.getExtension(), true);
+        }
+
+        /**
+         * Only metadata whose entries can be read back, currently {@link SimpleArtifactMetadata}, can be written.
+         */
+        public void write(ArtifactMetadata metadata) throws IOException {
+            if (!(metadata instanceof SimpleArtifactMetadata))
+                throw new IllegalArgumentException("Can not serialize metadata of type " + metadata.getClass().getName());
+            List<Map.Entry<String, String>> entries = ((SimpleArtifactMetadata)metadata).getEntries();
+            writeVarInt(Type.METADATA.ordinal());
+            writeVarInt(entries.size());
+            for (Map.Entry<String, String> entry : entries) {
+                writeString(entry.getKey(), true);
+                writeString(entry.getValue(), false);
+            }
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void writeString(String value, boolean shared) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            if (shared) {
+                Integer idx = strings.get(value);
+                if (idx != null) {
+                    writeVarInt(idx + 2);
+                    return;
+                }
+                if (strings.size() < MAX_STRINGS)
+                    strings.put(value, strings.size());
+            }
+            byte[] data = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(INLINE);
+            writeVarInt(data.length);
+            out.write(data);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Decodes one record at a time, so large files never have to be held in memory. Only the string table is kept.
+     */
+    public static class Reader implements Closeable {
+        private final InputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private int next = -2; // Type of the next record, -1 at the end of the stream, -2 if not read yet
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new BufferedInputStream(in);
+            for (byte b : MAGIC) {
+                if (this.in.read() != b)
+                    throw new IOException("Not an artifact data stream");
+            }
+            int version = readVarInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported artifact data version: " + version);
+        }
+
+        /**
+         * Returns the type of the next record, or null at the end of the stream.
+         */
+        public Type peek() throws IOException {
+            if (next == -2) {
+                int b = in.read();
+                if (b == -1) {
+                    next = -1;
+                } else {
+                    if ((b & 0x80) != 0 || b >= Type.values().length)
+                        throw new IOException("Unknown record type: " + b);
+                    next = b;
+                }
+            }
+            return next == -1 ? null : Type.values()[next];
+        }
+
+        public boolean hasNext() throws IOException {
+            return peek() != null;
+        }
+
+        public ArtifactIdentifier readIdentifier() throws IOException {
+            expect(Type.IDENTIFIER);
+            return new SimpleArtifactIdentifier(readString(true), readString(true), readString(false), readString(true), readString(true));
+        }
+
+        public ArtifactMetadata readMetadata() throws IOException {
+            expect(Type.METADATA);
+            int count = readVarInt();
+            ArtifactMetadata ret = new SimpleArtifactMetadata();
+            for (int x = 0; x < count; x++)
+                ret = ret.with(readString(true), readString(false));
+            return ret;
+        }
+
+        /**
+         * Skips the next record, still reading any new strings it defines so later records can refer to them.
+         */
+        public void skip() throws IOException {
+            Type type = peek();
+            if (type == Type.IDENTIFIER)
+                readIdentifier();
+            else if (type == Type.METADATA)
+                readMetadata();
+        }
+
+        private void expect(Type type) throws IOException {
+            Type actual = peek();
+            if (actual != type)
+                throw actual == null ? new EOFException() : new IOException("Expected " + type + " record but found " + actual);
+            next = -2;
+        }
+
+        // Must add to the table exactly when the writer did, or every later reference is off
+        private String readString(boolean shared) throws IOException {
+            int ref = readVarInt();
+            if (ref == NULL)
+                return null;
+            if (ref != INLINE) {
+                if (!shared || ref < 2 || ref - 2 >= strings.size())
+                    throw new IOException("Invalid string reference: " + ref);
+                return strings.get(ref - 2);
+            }
+            int length = readVarInt();
+            if (length < 0)
+                throw new IOException("Invalid string length: " + length);
+            byte[] data = new byte[length];
+            int read = 0;
+            while (read < data.length) {
+                int count = in.read(data, read, data.length - read);
+                if (count == -1)
+                    throw new EOFException();
+                read += count;
+            }
+            String ret = new String(data, StandardCharsets.UTF_8);
+            if (shared && strings.size() < MAX_STRINGS)
+                strings.add(ret);
+            return ret;
+        }
+
+        private int readVarInt() throws IOException {
+            int ret = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.read();
+                if (b == -1)
+                    throw new EOFException();
+                ret |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return ret;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.artifact;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.StringMatcher;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An immutable identifier predicate built from one precompiled {@link StringMatcher} per field.
+ * Use in place of chains of {@link ArtifactIdentifier#groupMatches(String)} and friends, or merge many into an {@link IdentifierMatcherSet}.
+ */
+public final class IdentifierMatcher implements Predicate<ArtifactIdentifier> {
+    private static final IdentifierMatcher ANY = new IdentifierMatcher(StringMatcher.any(), StringMatcher.any(), StringMatcher.any(), StringMatcher.any(), StringMatcher.any());
+
+    public enum Field {
+        GROUP(ArtifactIdentifier::getGroup),
+        NAME(ArtifactIdentifier::getName),
+        VERSION(ArtifactIdentifier::getVersion),
+        CLASSIFIER(ArtifactIdentifier::getClassifier),
+        EXTENSION(ArtifactIdentifier::getExtension);
+
+        private final Function<ArtifactIdentifier, String> getter;
+
+        Field(Function<ArtifactIdentifier, String> getter) {
+            this.getter = getter;
+        }
+
+        public String get(ArtifactIdentifier identifier) {
+            return getter.apply(identifier);
+        }
+    }
+
+    public static IdentifierMatcher any() {
+        return ANY;
+    }
+
+    private final StringMatcher[] matchers;
+
+    private IdentifierMatcher(StringMatcher... matchers) {
+        this.matchers = matchers;
+    }
+
+    public StringMatcher get(Field field) {
+        return matchers[field.ordinal()];
+    }
+
+    public IdentifierMatcher with(Field field, StringMatcher matcher) {
+        StringMatcher[] copy = matchers.clone();
+        copy[field.ordinal()] = matcher;
+        return new IdentifierMatcher(copy);
+    }
+
+    public IdentifierMatcher group(String group) {
+        return with(Field.GROUP, StringMatcher.literal(group));
+    }
+
+    public IdentifierMatcher groupMatches(String regex) {
+        return with(Field.GROUP, StringMatcher.regex(regex));
+    }
+
+    public IdentifierMatcher name(String name) {
+        return with(Field.NAME, StringMatcher.literal(name));
+    }
+
+    public IdentifierMatcher nameMatches(String regex) {
+        return with(Field.NAME, StringMatcher.regex(regex));
+    }
+
+    public IdentifierMatcher version(String version) {
+        return with(Field.VERSION, StringMatcher.literal(version));
+    }
+
+    public IdentifierMatcher versionMatches(String regex) {
+        return with(Field.VERSION, StringMatcher.regex(regex));
+    }
+
+    public IdentifierMatcher classifier(String classifier) {
+        return with(Field.CLASSIFIER, StringMatcher.literal(classifier));
+    }
+
+    public IdentifierMatcher classifierMatches(String regex) {
+        return with(Field.CLASSIFIER, StringMatcher.regex(regex));
+    }
+
+    public IdentifierMatcher extension(String extension) {
+        return with(Field.EXTENSION, StringMatcher.literal(extension));
+    }
+
+    public IdentifierMatcher extensionMatches(String regex) {
+        return with(Field.EXTENSION, StringMatcher.regex(regex));
+    }
+
+    @Override
+    public boolean test(ArtifactIdentifier identifier) {
+        for (Field field : Field.values()) {
+            StringMatcher matcher = matchers[field.ordinal()];
+            if (matcher.getKind() != StringMatcher.Kind.ANY && !matcher.test(field.get(identifier)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder("IdentifierMatcher[");
+        boolean first = true;
+        for (Field field : Field.values()) {
+            StringMatcher matcher = matchers[field.ordinal()];
+            if (matcher.getKind() == StringMatcher.Kind.ANY)
+                continue;
+            if (!first)
+                ret.append(", ");
+            ret.append(field.name().toLowerCase(Locale.ROOT)).append('=').append(matcher);
+            first = false;
+        }
+        return ret.append(']').toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.artifact;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.artifact.IdentifierMatcher.Field;
+import net.minecraftforge.artifactural.base.util.StringMatcher;
+import net.minecraftforge.artifactural.base.util.StringMatcherSet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Many {@link IdentifierMatcher}s evaluated together: each field is matched once against a {@link StringMatcherSet}
+ * and the per field results intersected, instead of testing every matcher in turn.
+ */
+public class IdentifierMatcherSet {
+    private final List<IdentifierMatcher> matchers;
+    private final StringMatcherSet[] fields = new StringMatcherSet[Field.values().length];
+
+    public IdentifierMatcherSet(List<IdentifierMatcher> matchers) {
+        this.matchers = Collections.unmodifiableList(new ArrayList<>(matchers));
+        for (Field field : Field.values()) {
+            List<StringMatcher> column = new ArrayList<>(matchers.size());
+            boolean used = false;
+            for (IdentifierMatcher matcher : this.matchers) {
+                StringMatcher m = matcher.get(field);
+                column.add(m);
+                used |= m.getKind() != StringMatcher.Kind.ANY;
+            }
+            // Skip fields nobody constrains so they are never read
+            fields[field.ordinal()] = used ? new StringMatcherSet(column) : null;
+        }
+    }
+
+    public List<IdentifierMatcher> getMatchers() {
+        return matchers;
+    }
+
+    /**
+     * Returns the indices of every matcher that matches the identifier.
+     */
+    public BitSet match(ArtifactIdentifier identifier) {
+        BitSet ret = new BitSet(matchers.size());
+        ret.set(0, matchers.size());
+        for (Field field : Field.values()) {
+            StringMatcherSet set = fields[field.ordinal()];
+            if (set == null)
+                continue;
+            ret.and(set.match(field.get(identifier)));
+            if (ret.isEmpty())
+                break;
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the index of the first matcher that matches the identifier, or -1.
+     */
+    public int first(ArtifactIdentifier identifier) {
+        return match(identifier).nextSetBit(0);
+    }
+
+    public boolean anyMatch(ArtifactIdentifier identifier) {
+        return first(identifier) != -1;
+    }
+}
@@ -19,11 +19,32 @@
 
 package net.minecraftforge.artifactural.base.artifact;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
 import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
 
+/**
+ * Identifier with value equality, so it can be used as a map key. The hash code is computed once on construction.
+ */
 public class SimpleArtifactIdentifier implements ArtifactIdentifier {
+    private static final Map<SimpleArtifactIdentifier, WeakReference<SimpleArtifactIdentifier>> POOL = new WeakHashMap<>();
+
+    /**
+     * Returns a {@link SimpleArtifactIdentifier} with the same coordinates, or the identifier itself if it already is one.
+     */
+    public static SimpleArtifactIdentifier copyOf(ArtifactIdentifier identifier) {
+        if (identifier instanceof SimpleArtifactIdentifier)
+            return (SimpleArtifactIdentifier)identifier;
+        return new SimpleArtifactIdentifier(identifier.getGroup(), identifier.getName(), identifier.getVersion(), identifier.getClassifier(), identifier.getExtension());
+    }
 
     private final String group, name, version, classifier, extension;
+    private final int hash;
+    private String canonical;
+    private String string;
 
     public SimpleArtifactIdentifier(String group, String name, String version, String classifier, String extension) {
         this.group = group;
@@ -31,6 +52,23 @@ public class SimpleArtifactIdentifier implements ArtifactIdentifier {
         this.version = version;
         this.classifier = classifier;
         this.extension = extension;
+        this.hash = Objects.hash(group, name, version, classifier, extension);
+    }
+
+    /**
+     * Returns the canonical instance with these coordinates, like {@link String#intern()}.
+     * Canonical instances are only weakly held, so they are dropped once nothing else refers to them.
+     */
+    public SimpleArtifactIdentifier intern() {
+        synchronized (POOL) {
+            WeakReference<SimpleArtifactIdentifier> ref = POOL.get(this);
+            SimpleArtifactIdentifier ret = ref == null ? null : ref.get();
+            if (ret == null) {
+                POOL.put(this, new WeakReference<>(this));
+                ret = this;
+            }
+            return ret;
+        }
     }
 
     @Override
@@ -58,13 +96,47 @@ public class SimpleArtifactIdentifier implements ArtifactIdentifier {
         return extension;
     }
 
+    /**
+     * Returns {@code group:name:version[:classifier]@extension}, with every field that is set, suitable for logging and as a key.
+     */
+    public String toCanonicalString() {
+        String ret = canonical;
+        if (ret == null) {
+            StringBuilder buf = new StringBuilder(64).append(group).append(':').append(name).append(':').append(version);
+            if (classifier != null && !classifier.isEmpty())
+                buf.append(':').append(classifier);
+            if (extension != null && !extension.isEmpty())
+                buf.append('@').append(extension);
+            canonical = ret = buf.toString();
+        }
+        return ret;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SimpleArtifactIdentifier)) return false;
+        SimpleArtifactIdentifier o = (SimpleArtifactIdentifier)obj;
+        return hash == o.hash && Objects.equals(group, o.group) && Objects.equals(name, o.name) && Objects.equals(version, o.version) &&
+            Objects.equals(classifier, o.classifier) && Objects.equals(extension, o.extension);
+    }
+
     @Override
     public String toString() {
-        String ret = getGroup() + ':' + getName() + ':' + getVersion();
-        if (classifier != null)
-            ret += ':' + getClassifier();
-        if ("jar".equals(extension))
-            ret += '@' + getExtension();
+        String ret = string;
+        if (ret == null) {
+            ret = getGroup() + ':' + getName() + ':' + getVersion();
+            if (classifier != null)
+                ret += ':' + getClassifier();
+            if ("jar".equals(extension))
+                ret += '@' + getExtension();
+            string = ret;
+        }
         return ret;
     }
 }
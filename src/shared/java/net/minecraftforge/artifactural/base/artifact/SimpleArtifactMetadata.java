@@ -19,25 +19,62 @@
 
 package net.minecraftforge.artifactural.base.artifact;
 
+import java.nio.charset.Charset;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.base.util.HashFunction;
 
+/**
+ * Immutable metadata, each instance shares its parent's entries and only adds one of its own.
+ *
+ * The hash is the SHA-1 of every entry's {@code [key,value]} form joined by new lines. Every instance keeps the digest state after
+ * its own entry, so {@link #with(String, String)} only has to feed the new entry into a copy of its parent's state,
+ * and the hash is computed once on construction.
+ */
 public class SimpleArtifactMetadata implements ArtifactMetadata {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Hashes have always used the platform charset, keep doing so or existing cache paths would change
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final byte[] SEPARATOR = "\n".getBytes(CHARSET);
 
-    private final List<Entry> entries = new LinkedList<>();
-    private String hash = null;
+    private final SimpleArtifactMetadata parent;
+    private final Entry entry;
+    private final int size;
+    private final MessageDigest digest;
+    private final String hash;
 
     public SimpleArtifactMetadata() {
+        this.parent = null;
+        this.entry = null;
+        this.size = 0;
+        this.digest = HashFunction.SHA1.get();
+        this.hash = finish(digest);
     }
 
     private SimpleArtifactMetadata(SimpleArtifactMetadata parent, Entry entry) {
-        this.entries.addAll(parent.entries);
-        this.entries.add(entry);
+        this.parent = parent;
+        this.entry = entry;
+        this.size = parent.size + 1;
+        MessageDigest digest = copy(parent.digest);
+        if (digest == null) {
+            digest = HashFunction.SHA1.get();
+            for (Entry e : parent.entries()) {
+                digest.update(e.toString().getBytes(CHARSET));
+                digest.update(SEPARATOR);
+            }
+        } else if (parent.size > 0) {
+            digest.update(SEPARATOR);
+        }
+        digest.update(entry.toString().getBytes(CHARSET));
+        this.digest = digest;
+        this.hash = finish(digest);
     }
 
     @Override
@@ -47,24 +84,52 @@ public class SimpleArtifactMetadata implements ArtifactMetadata {
 
     @Override
     public String getHash() {
-        if (hash != null) return hash;
+        return hash;
+    }
+
+    /**
+     * Returns the entries in the order they were added, including repeated keys.
+     */
+    public List<Map.Entry<String, String>> getEntries() {
+        List<Map.Entry<String, String>> ret = new ArrayList<>(size);
+        for (Entry e : entries())
+            ret.add(new AbstractMap.SimpleImmutableEntry<>(e.key, e.value));
+        return Collections.unmodifiableList(ret);
+    }
+
+    private Entry[] entries() {
+        Entry[] ret = new Entry[size];
+        SimpleArtifactMetadata current = this;
+        for (int x = size - 1; x >= 0; x--) {
+            ret[x] = current.entry;
+            current = current.parent;
+        }
+        return ret;
+    }
+
+    // Returns null if the digest can not be cloned, in which case it is rebuilt from the entries
+    private static MessageDigest copy(MessageDigest digest) {
         try {
-            String str = entries.stream().map(Entry::toString).collect(Collectors.joining("\n"));
-            MessageDigest digest = MessageDigest.getInstance("SHA-1");
-            byte[] hashBytes = digest.digest(str.getBytes());
-            StringBuilder hashBuilder = new StringBuilder();
-            for (byte b : hashBytes) {
-                hashBuilder.append(String.format("%02x", b));
-            }
-            return hash = hashBuilder.toString();
-        } catch (NoSuchAlgorithmException ex) {
-            throw new RuntimeException(ex);
+            return (MessageDigest)digest.clone();
+        } catch (CloneNotSupportedException e) {
+            return null;
+        }
+    }
+
+    private static String finish(MessageDigest digest) {
+        MessageDigest tmp = copy(digest);
+        byte[] hash = tmp == null ? digest.digest() : tmp.digest();
+        char[] ret = new char[hash.length * 2];
+        for (int x = 0; x < hash.length; x++) {
+            ret[x * 2] = HEX[(hash[x] >> 4) & 0xF];
+            ret[x * 2 + 1] = HEX[hash[x] & 0xF];
         }
+        return new String(ret);
     }
 
     @Override
     public String toString() {
-        return "SimpleArtifactMetadata(" + entries.toString() + ", " + getHash() + ")";
+        return "SimpleArtifactMetadata(" + Arrays.toString(entries()) + ", " + getHash() + ")";
     }
 
     private static class Entry {
@@ -27,12 +27,16 @@ import net.minecraftforge.artifactural.api.artifact.MissingArtifactException;
 import net.minecraftforge.artifactural.api.cache.ArtifactCache;
 import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
 import net.minecraftforge.artifactural.base.artifact.StreamableArtifact;
+import net.minecraftforge.artifactural.base.util.AtomicFiles;
+import net.minecraftforge.artifactural.base.util.HashFunction;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 public abstract class ArtifactCacheBase implements ArtifactCache {
 
@@ -53,17 +57,57 @@ public abstract class ArtifactCacheBase implements ArtifactCache {
             path.createNewFile();
             FileOutputStream fos = new FileOutputStream(path);
             InputStream is = artifact.openStream();
+            // Hash while writing, so checksums never have to read the file again
+            HashFunction[] functions = HashFunction.values();
+            HashFunction.Instance[] hashes = new HashFunction.Instance[functions.length];
+            for (int x = 0; x < functions.length; x++)
+                hashes[x] = functions[x].create();
             int read;
             byte[] bytes = new byte[256];
             while ((read = is.read(bytes)) > 0) {
                 fos.write(bytes, 0, read);
+                for (HashFunction.Instance hash : hashes)
+                    hash.update(bytes, 0, read);
             }
             fos.close();
             is.close();
+            for (int x = 0; x < functions.length; x++)
+                writeChecksum(getChecksumFile(path, functions[x]), hashes[x].finish(), stamp(path));
         }
         return new FileInputStream(path);
     }
 
+    /**
+     * Returns a file next to the given one, named like {@code name.jar.sha1}, holding its checksum.
+     * Checksums are written when a file is stored in the cache, they are only computed here for files that are missing them or changed since.
+     */
+    public static File getChecksum(File file, HashFunction function) throws IOException {
+        File ret = getChecksumFile(file, function);
+        String stamp = stamp(file);
+        if (!ret.exists() || !stamp.equals(readStamp(ret)))
+            writeChecksum(ret, function.hash(file), stamp);
+        return ret;
+    }
+
+    private static File getChecksumFile(File file, HashFunction function) {
+        return new File(file.getParentFile(), file.getName() + '.' + function.getExtension());
+    }
+
+    // Sidecars hold the hash followed by the size and modification time of the file it was computed from.
+    // Checksum readers only look at the first token, the same way they skip the file name in 'sha1sum' output.
+    private static String stamp(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static String readStamp(File checksum) throws IOException {
+        String[] parts = new String(Files.readAllBytes(checksum.toPath()), StandardCharsets.UTF_8).trim().split("\\s+");
+        return parts.length > 1 ? parts[1] : null;
+    }
+
+    private static void writeChecksum(File file, String hash, String stamp) throws IOException {
+        AtomicFiles.write(file, (hash + ' ' + stamp).getBytes(StandardCharsets.UTF_8));
+    }
+
     public static Artifact.Cached wrap(Artifact artifact, File file) {
         return new Artifact.Cached() {
 
@@ -24,11 +24,8 @@ import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
 import net.minecraftforge.artifactural.base.util.PatternReplace;
 
 import java.io.File;
-import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class LocatedArtifactCache extends ArtifactCacheBase {
     private static final String PATTERN = "[group]/[name](/[meta_hash])/[version]/[name]-[version](-[classifier])(-[specifier]).[extension]";
@@ -45,22 +42,18 @@ public class LocatedArtifactCache extends ArtifactCacheBase {
 
     public File getPath(Artifact artifact) {
         ArtifactIdentifier identifier = artifact.getIdentifier();
-        Map<String, String> names = Stream.of(
-            entry("group", identifier.getGroup()),
-            entry("name", identifier.getName()),
-            entry("version", identifier.getVersion()),
-            entry("classifier", identifier.getClassifier()),
-            entry("extension", identifier.getExtension()),
-            //entry("specifier", specifier), /?
-            entry("meta_hash", artifact.getMetadata().getHash())
-        ).collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+        // Not Collectors.toMap, it does not allow the null values of unset optional parts such as the classifier
+        Map<String, String> names = new HashMap<>();
+        names.put("group", identifier.getGroup());
+        names.put("name", identifier.getName());
+        names.put("version", identifier.getVersion());
+        names.put("classifier", identifier.getClassifier());
+        names.put("extension", identifier.getExtension());
+        //names.put("specifier", specifier); /?
+        names.put("meta_hash", artifact.getMetadata().getHash());
         return new File(path, PatternReplace.replace(PATTERN, names));
     }
 
-    private static <K,V> Entry<K,V> entry(K key, V value) {
-        return new AbstractMap.SimpleEntry<>(key, value);
-    }
-
     @Override
     public String toString() {
         return "LocatedArtifactCache(" + path + ")";
@@ -19,37 +19,58 @@
 
 package net.minecraftforge.artifactural.base.repository;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
 import net.minecraftforge.artifactural.api.repository.ArtifactProvider;
+import net.minecraftforge.artifactural.api.repository.LookupCost;
+import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.BoundedCache;
 
 public class ArtifactProviderBuilder<S, I> implements ArtifactProvider.Builder<S, I> {
 
     public static <I> ArtifactProviderBuilder<I, I> begin(Class<I> type) {
-        return new ArtifactProviderBuilder<>(Function.identity());
+        return new ArtifactProviderBuilder<>(Function.identity(), true);
     }
 
     private final Function<S, I> mapper;
-    private final Set<Predicate<I>> filters = new HashSet<>();
+    private final boolean identity;
+    private final List<Predicate<I>> filters = new ArrayList<>();
 
-    private ArtifactProviderBuilder(Function<S, I> mapper) {
+    private ArtifactProviderBuilder(Function<S, I> mapper, boolean identity) {
         this.mapper = mapper;
+        this.identity = identity;
     }
 
     @Override
     public ArtifactProvider.Builder<S, I> filter(Predicate<I> filter) {
-        filters.add(filter);
+        if (!filters.contains(filter))
+            filters.add(filter);
         return this;
     }
 
     @Override
     public <D> ArtifactProvider.Builder<S, D> mapInfo(Function<I, D> mapper) {
         if (filters.isEmpty()) {
-            return new ArtifactProviderBuilder<>(this.mapper.andThen(mapper));
+            return new ArtifactProviderBuilder<>(this.mapper.andThen(mapper), false);
         }
         return new ArtifactProviderBuilder<>((S info) -> {
             I localInfo = this.mapper.apply(info);
@@ -60,41 +81,428 @@ public class ArtifactProviderBuilder<S, I> implements ArtifactProvider.Builder<S
                 }
             }
             return mapper.apply(localInfo);
-        });
+        }, false);
     }
 
     @Override
-    public ArtifactProvider.Builder.Complete<S, I> provide(ArtifactProvider<I> provider) {
-        return new Complete<>(mapper).provide(provider);
+    public Complete<S, I> provide(ArtifactProvider<I> provider) {
+        return new Complete<>(mapper, identity).provide(provider);
     }
 
-    private static class Complete<S, I> implements ArtifactProvider.Builder.Complete<S, I> {
+    @Override
+    public Complete<S, I> provide(ArtifactProvider<I> provider, int priority) {
+        return new Complete<>(mapper, identity).provide(provider, priority);
+    }
+
+    public Complete<S, I> provide(ArtifactProvider<I> provider, ProviderScope scope) {
+        return new Complete<>(mapper, identity).provide(provider, scope);
+    }
+
+    public Complete<S, I> provide(ArtifactProvider<I> provider, int priority, ProviderScope scope) {
+        return new Complete<>(mapper, identity).provide(provider, priority, scope);
+    }
 
-        private final Set<ArtifactProvider<I>> providers = new HashSet<>();
+    /**
+     * Probes its providers in a fixed order: highest priority first, then in the order they were added.
+     * When the info handed to providers is an {@link ArtifactIdentifier}, providers whose {@link ProviderScope} does not contain it are skipped.
+     * The scopes are only reported through {@link Scoped} once it is frozen, and only if the info is not mapped before it reaches the providers.
+     */
+    public static class Complete<S, I> implements ArtifactProvider.Builder.Complete<S, I>, Scoped {
+
+        private final List<Entry<I>> entries = new ArrayList<>();
         private final Function<S, I> mapper;
+        private final boolean identity;
+        private boolean frozen;
+        private volatile Chain<I> chain = new Chain<>(newArray(0), null);
+        // Each miss maps to the chain it was found with and only counts while that is still the current chain,
+        // so a lookup that raced with provide() can not hide the new provider
+        private volatile BoundedCache<Object, Chain<I>> misses;
+        private volatile Executor executor;
+        private volatile long hedgeDelay;
 
-        private Complete(Function<S, I> mapper) {
+        private Complete(Function<S, I> mapper, boolean identity) {
             this.mapper = mapper;
+            this.identity = identity;
+        }
+
+        @Override
+        public Complete<S, I> provide(ArtifactProvider<I> provider) {
+            return provide(provider, 0);
+        }
+
+        @Override
+        public Complete<S, I> provide(ArtifactProvider<I> provider, int priority) {
+            return provide(provider, priority, ProviderScope.all());
+        }
+
+        public Complete<S, I> provide(ArtifactProvider<I> provider, ProviderScope scope) {
+            return provide(provider, 0, scope);
+        }
+
+        public synchronized Complete<S, I> provide(ArtifactProvider<I> provider, int priority, ProviderScope scope) {
+            if (frozen)
+                throw new IllegalStateException("Can not add providers after the scopes were frozen");
+            for (Entry<I> entry : entries) {
+                if (entry.provider.equals(provider))
+                    return this;
+            }
+            // Stable insertion, after every entry with the same or higher priority
+            int idx = entries.size();
+            while (idx > 0 && entries.get(idx - 1).priority < priority)
+                idx--;
+            entries.add(idx, new Entry<>(provider, priority, scope));
+
+            ArtifactProvider<I>[] providers = newArray(entries.size());
+            List<ProviderScope> scopes = new ArrayList<>(entries.size());
+            for (int x = 0; x < providers.length; x++) {
+                providers[x] = entries.get(x).provider;
+                scopes.add(entries.get(x).scope);
+            }
+            ScopeRouter router = new ScopeRouter(scopes);
+            this.chain = new Chain<>(providers, router.isTrivial() ? null : router);
+            clearMisses();
+            return this;
+        }
+
+        @Override
+        public synchronized void freeze() {
+            frozen = true;
         }
 
+        // Scopes describe the mapped info, they only say something about the info we are asked for if it is not mapped
         @Override
-        public Builder.Complete<S, I> provide(ArtifactProvider<I> provider) {
-            providers.add(provider);
+        public synchronized List<ProviderScope> getScopes() {
+            if (!frozen || !identity)
+                return Collections.singletonList(ProviderScope.all());
+            List<ProviderScope> ret = new ArrayList<>(entries.size());
+            for (Entry<I> entry : entries)
+                ret.add(entry.scope);
+            return ret;
+        }
+
+        /**
+         * Remembers the identifiers no provider had, so asking again within {@code ttl} does not probe every provider.
+         * The mapped info is used as the key, so unless it is an {@link ArtifactIdentifier}, which is compared by its coordinates,
+         * it must implement equals and hashCode. Adding a provider forgets every miss.
+         */
+        public Complete<S, I> cacheMisses(int maxSize, long ttl, TimeUnit unit) {
+            this.misses = new BoundedCache<>(maxSize, ttl, unit);
+            return this;
+        }
+
+        /**
+         * Probes providers concurrently on the executor instead of one after another, the result is the same as probing them in order.
+         * Each provider is started once the one before it missed, or {@code hedgeDelay} after it was started, whichever comes first,
+         * so a delay of zero starts them all at once. Providers that can no longer win are cancelled.
+         */
+        public Complete<S, I> parallel(Executor executor, long hedgeDelay, TimeUnit unit) {
+            this.hedgeDelay = Math.max(0, unit.toNanos(hedgeDelay));
+            this.executor = executor;
             return this;
         }
 
+        // Identifiers are compared by their coordinates, whatever their implementation
+        private static Object missKey(Object info) {
+            return info instanceof ArtifactIdentifier ? SimpleArtifactIdentifier.copyOf((ArtifactIdentifier)info) : info;
+        }
+
+        public void clearMisses() {
+            BoundedCache<Object, Chain<I>> misses = this.misses;
+            if (misses != null)
+                misses.clear();
+        }
+
         @Override
         public Artifact getArtifact(S info) {
             I localInfo = mapper.apply(info);
             if (localInfo == null) return Artifact.none();
 
-            for (ArtifactProvider<I> provider : providers) {
-                Artifact artifact = provider.getArtifact(localInfo);
-                if (artifact.isPresent()) return artifact;
+            Chain<I> chain = this.chain;
+            ArtifactProvider<I>[] providers = chain.providers;
+            ScopeRouter router = chain.router;
+            if (router != null && localInfo instanceof ArtifactIdentifier) {
+                BitSet routed = router.route((ArtifactIdentifier)localInfo);
+                if (routed.isEmpty()) return Artifact.none();
+                if (routed.cardinality() != providers.length) {
+                    ArtifactProvider<I>[] subset = newArray(routed.cardinality());
+                    for (int x = routed.nextSetBit(0), y = 0; x >= 0; x = routed.nextSetBit(x + 1))
+                        subset[y++] = providers[x];
+                    providers = subset;
+                }
+            }
+
+            BoundedCache<Object, Chain<I>> misses = this.misses;
+            if (misses != null && misses.get(missKey(localInfo)) == chain)
+                return Artifact.none();
+
+            Executor executor = this.executor;
+            if (executor != null && providers.length > 1) {
+                Artifact artifact = getParallel(executor, providers, localInfo);
+                if (artifact != null) return artifact;
+            } else {
+                for (ArtifactProvider<I> provider : providers) {
+                    Artifact artifact = provider.getArtifact(localInfo);
+                    if (artifact.isPresent()) return artifact;
+                }
             }
+
+            if (misses != null)
+                misses.put(missKey(localInfo), chain);
             return Artifact.none();
         }
 
+        /**
+         * The cost of probing every provider that could be asked for this info, known misses are cheap.
+         */
+        @Override
+        public LookupCost estimateCost(S info) {
+            I localInfo = mapper.apply(info);
+            if (localInfo == null) return LookupCost.CHEAP;
+
+            Chain<I> chain = this.chain;
+            BitSet routed = null;
+            if (chain.router != null && localInfo instanceof ArtifactIdentifier) {
+                routed = chain.router.route((ArtifactIdentifier)localInfo);
+                if (routed.isEmpty()) return LookupCost.CHEAP;
+            }
+            BoundedCache<Object, Chain<I>> misses = this.misses;
+            if (misses != null && misses.get(missKey(localInfo)) == chain)
+                return LookupCost.CHEAP;
+
+            LookupCost ret = LookupCost.CHEAP;
+            for (int x = 0; x < chain.providers.length && ret != LookupCost.EXPENSIVE; x++) {
+                if (routed == null || routed.get(x))
+                    ret = ret.max(chain.providers[x].estimateCost(localInfo));
+            }
+            return ret;
+        }
+
+        /**
+         * Hands each provider, in order, every info no earlier provider had in a single bulk call.
+         * With an executor set by {@link #parallel(Executor, long, TimeUnit)} every provider is instead handed every info it is scoped for at once,
+         * concurrently, and each info still gets the artifact of the first provider that had it. The hedging delay does not apply here.
+         */
+        @Override
+        public Map<S, Artifact> getArtifacts(Collection<? extends S> infos) {
+            return getArtifacts(infos, null);
+        }
+
+        /**
+         * Like {@link #getArtifacts(Collection)}, but runs the providers concurrently on the given executor instead of the configured one when it is not null.
+         * Providers are always asked through {@link ArtifactProvider#getArtifacts(Collection)}, so their own bulk lookups are kept.
+         */
+        @Override
+        public Map<S, Artifact> getArtifacts(Collection<? extends S> infos, Executor executor) {
+            Chain<I> chain = this.chain;
+            BoundedCache<Object, Chain<I>> misses = this.misses;
+            Map<S, Artifact> ret = new LinkedHashMap<>();
+            // Mapped info still to be found, to every info that mapped to it
+            Map<I, List<S>> pending = new LinkedHashMap<>();
+            Map<I, BitSet> routes = new HashMap<>();
+            for (S info : infos) {
+                ret.put(info, Artifact.none());
+                I localInfo = mapper.apply(info);
+                if (localInfo == null || (misses != null && misses.get(missKey(localInfo)) == chain))
+                    continue;
+                if (chain.router != null && localInfo instanceof ArtifactIdentifier) {
+                    BitSet routed = routes.computeIfAbsent(localInfo, k -> chain.router.route((ArtifactIdentifier)k));
+                    if (routed.isEmpty())
+                        continue;
+                }
+                pending.computeIfAbsent(localInfo, k -> new ArrayList<>()).add(info);
+            }
+
+            if (executor == null)
+                executor = this.executor;
+            if (executor != null && chain.providers.length > 1 && !pending.isEmpty()) {
+                getArtifactsParallel(executor, chain.providers, pending, routes, ret);
+            } else {
+                for (int x = 0; x < chain.providers.length && !pending.isEmpty(); x++) {
+                    List<I> batch = batch(x, pending, routes);
+                    if (!batch.isEmpty())
+                        collect(batch, chain.providers[x].getArtifacts(batch), pending, ret);
+                }
+            }
+
+            if (misses != null) {
+                for (I localInfo : pending.keySet())
+                    misses.put(missKey(localInfo), chain);
+            }
+            return ret;
+        }
+
+        private void getArtifactsParallel(Executor executor, ArtifactProvider<I>[] providers, Map<I, List<S>> pending, Map<I, BitSet> routes, Map<S, Artifact> ret) {
+            List<List<I>> batches = new ArrayList<>(providers.length);
+            List<FutureTask<Map<I, Artifact>>> tasks = new ArrayList<>(providers.length);
+            for (int x = 0; x < providers.length; x++) {
+                List<I> batch = batch(x, pending, routes);
+                ArtifactProvider<I> provider = providers[x];
+                FutureTask<Map<I, Artifact>> task = new FutureTask<>(() -> provider.getArtifacts(batch));
+                batches.add(batch);
+                tasks.add(task);
+                if (batch.isEmpty())
+                    continue;
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run(); // Saturated or shut down, ask this provider on this thread instead
+                }
+            }
+
+            try {
+                for (int x = 0; x < providers.length && !pending.isEmpty(); x++) {
+                    if (!batches.get(x).isEmpty())
+                        collect(batches.get(x), tasks.get(x).get(), pending, ret);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } finally {
+                for (FutureTask<?> task : tasks)
+                    task.cancel(true);
+            }
+        }
+
+        // Everything still pending that provider x is scoped for
+        private List<I> batch(int x, Map<I, List<S>> pending, Map<I, BitSet> routes) {
+            List<I> batch = new ArrayList<>(pending.size());
+            for (I localInfo : pending.keySet()) {
+                BitSet routed = routes.get(localInfo);
+                if (routed == null || routed.get(x))
+                    batch.add(localInfo);
+            }
+            return batch;
+        }
+
+        private void collect(List<I> batch, Map<I, Artifact> found, Map<I, List<S>> pending, Map<S, Artifact> ret) {
+            for (I localInfo : batch) {
+                Artifact artifact = found.get(localInfo);
+                if (artifact == null || !pending.containsKey(localInfo) || !artifact.isPresent())
+                    continue;
+                for (S info : pending.remove(localInfo))
+                    ret.put(info, artifact);
+            }
+        }
+
+        /**
+         * Returns the first present artifact in provider order, or null if every provider missed.
+         */
+        private Artifact getParallel(Executor executor, ArtifactProvider<I>[] providers, I info) {
+            int count = providers.length;
+            long delay = hedgeDelay;
+            // Each slot holds the provider's Probe or Throwable, the index is queued once it is set
+            AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(count);
+            BlockingQueue<Integer> done = new LinkedBlockingQueue<>();
+            List<FutureTask<Void>> tasks = new ArrayList<>(count);
+
+            int next = 0; // Lowest provider that has not answered yet, everything before it missed
+            int limit = count; // Lowest provider known to have the artifact, nothing after it can win
+            try {
+                long deadline = 0;
+                while (true) {
+                    Object result;
+                    while (next < tasks.size() && (result = results.get(next)) != null) {
+                        if (result instanceof Throwable)
+                            throw rethrow((Throwable)result);
+                        if (((Probe)result).present)
+                            return ((Probe)result).artifact;
+                        next++;
+                    }
+                    if (next == limit)
+                        return null;
+
+                    // Start the next provider once every started one missed or the hedging delay passed
+                    boolean start = tasks.size() < limit && (next == tasks.size() || delay == 0 || System.nanoTime() - deadline >= 0);
+                    if (start) {
+                        int idx = tasks.size();
+                        ArtifactProvider<I> provider = providers[idx];
+                        FutureTask<Void> task = new FutureTask<>(() -> {
+                            Object ret;
+                            try {
+                                Artifact artifact = provider.getArtifact(info);
+                                ret = new Probe(artifact, artifact.isPresent());
+                            } catch (Throwable t) {
+                                ret = t;
+                            }
+                            results.set(idx, ret);
+                            done.add(idx);
+                        }, null);
+                        tasks.add(task);
+                        try {
+                            executor.execute(task);
+                        } catch (RejectedExecutionException e) {
+                            task.run(); // Saturated or shut down, probe on this thread instead
+                        }
+                        deadline = System.nanoTime() + delay;
+                        continue;
+                    }
+
+                    Integer finished = tasks.size() < limit ? done.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) : done.take();
+                    if (finished != null) {
+                        Object value = results.get(finished);
+                        if (finished < limit && value instanceof Probe && ((Probe)value).present) {
+                            limit = finished;
+                            for (int x = limit + 1; x < tasks.size(); x++)
+                                tasks.get(x).cancel(true);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } finally {
+                for (int x = next + 1; x < tasks.size(); x++)
+                    tasks.get(x).cancel(true);
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable t) {
+            if (t instanceof RuntimeException)
+                return (RuntimeException)t;
+            if (t instanceof Error)
+                throw (Error)t;
+            return new RuntimeException(t);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <I> ArtifactProvider<I>[] newArray(int size) {
+            return (ArtifactProvider<I>[])new ArtifactProvider[size];
+        }
+
+        private static class Probe {
+            private final Artifact artifact;
+            private final boolean present;
+
+            private Probe(Artifact artifact, boolean present) {
+                this.artifact = artifact;
+                this.present = present;
+            }
+        }
+
+        private static class Chain<I> {
+            private final ArtifactProvider<I>[] providers;
+            private final ScopeRouter router;
+
+            private Chain(ArtifactProvider<I>[] providers, ScopeRouter router) {
+                this.providers = providers;
+                this.router = router;
+            }
+        }
+
+        private static class Entry<I> {
+            private final ArtifactProvider<I> provider;
+            private final int priority;
+            private final ProviderScope scope;
+
+            private Entry(ArtifactProvider<I> provider, int priority, ProviderScope scope) {
+                this.provider = provider;
+                this.priority = priority;
+                this.scope = scope;
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,301 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.repository.LookupCost;
+import net.minecraftforge.artifactural.api.repository.Repository;
+import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.BoundedCache;
+
+/**
+ * Remembers what another repository returned for each identifier, in a cache bounded by size and age.
+ * Concurrent lookups of the same identifier share a single call to the underlying repository,
+ * a lookup that asks for the identifier it is loading fails with an {@link IllegalStateException} instead of waiting for itself.
+ */
+public class CachingRepository implements Repository, Scoped {
+
+    public static CachingRepository of(Repository repository, int maxSize, long ttl, TimeUnit unit) {
+        return new CachingRepository(repository, maxSize, ttl, unit);
+    }
+
+    private final Repository repository;
+    private final BoundedCache<SimpleArtifactIdentifier, Artifact> cache;
+    private final ConcurrentMap<SimpleArtifactIdentifier, Load> loading = new ConcurrentHashMap<>();
+    // Bumped by invalidateAll, so loads that started before it do not put stale results back
+    private final AtomicLong generation = new AtomicLong();
+    // Bumped by every invalidation, bulk loads are not tracked per identifier so any of them discards their results
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+
+    private CachingRepository(Repository repository, int maxSize, long ttl, TimeUnit unit) {
+        this.repository = repository;
+        this.cache = new BoundedCache<>(maxSize, ttl, unit);
+    }
+
+    @Override
+    public List<ProviderScope> getScopes() {
+        return Scoped.of(repository);
+    }
+
+    @Override
+    public void freeze() {
+        if (repository instanceof Scoped)
+            ((Scoped)repository).freeze();
+    }
+
+    @Override
+    public Artifact getArtifact(ArtifactIdentifier identifier) {
+        SimpleArtifactIdentifier key = SimpleArtifactIdentifier.copyOf(identifier);
+        Artifact ret = cache.get(key);
+        if (ret != null) {
+            hits.increment();
+            return ret;
+        }
+
+        Load future = new Load();
+        Load existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread())
+                throw new IllegalStateException("Recursive lookup of " + key);
+            hits.increment();
+            return join(existing);
+        }
+
+        long start = System.nanoTime();
+        try {
+            // The previous load may have finished between our cache check and taking its place
+            ret = cache.get(key);
+            if (ret != null) {
+                hits.increment();
+                future.complete(ret);
+                return ret;
+            }
+
+            misses.increment();
+            long gen = generation.get();
+            ret = repository.getArtifact(identifier);
+            synchronized (future) {
+                if (!future.stale && generation.get() == gen)
+                    cache.put(key, ret);
+            }
+            future.complete(ret);
+            return ret;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadTime.add(System.nanoTime() - start);
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Answers what it can from the cache and asks the underlying repository for the rest in a single bulk call.
+     * Bulk loads are not deduplicated against concurrent lookups.
+     */
+    @Override
+    public Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers) {
+        return getArtifacts(identifiers, null);
+    }
+
+    @Override
+    public Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers, Executor executor) {
+        Map<ArtifactIdentifier, Artifact> ret = new LinkedHashMap<>();
+        List<ArtifactIdentifier> missing = new ArrayList<>();
+        for (ArtifactIdentifier identifier : identifiers) {
+            Artifact artifact = cache.get(SimpleArtifactIdentifier.copyOf(identifier));
+            if (artifact != null) {
+                hits.increment();
+            } else {
+                missing.add(identifier);
+            }
+            ret.put(identifier, artifact);
+        }
+        if (missing.isEmpty())
+            return ret;
+
+        misses.add(missing.size());
+        long gen = invalidations.get();
+        long start = System.nanoTime();
+        Map<ArtifactIdentifier, Artifact> loaded;
+        try {
+            loaded = repository.getArtifacts(missing, executor);
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            throw e;
+        } finally {
+            loadTime.add(System.nanoTime() - start);
+        }
+
+        boolean store = invalidations.get() == gen;
+        for (ArtifactIdentifier identifier : missing) {
+            Artifact artifact = loaded.get(identifier);
+            if (artifact == null)
+                artifact = Artifact.none();
+            if (store)
+                cache.put(SimpleArtifactIdentifier.copyOf(identifier), artifact);
+            ret.put(identifier, artifact);
+        }
+        return ret;
+    }
+
+    private static Artifact join(CompletableFuture<Artifact> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    @Override
+    public LookupCost estimateCost(ArtifactIdentifier identifier) {
+        if (cache.get(SimpleArtifactIdentifier.copyOf(identifier)) != null)
+            return LookupCost.CHEAP;
+        return repository.estimateCost(identifier);
+    }
+
+    @Override
+    public File getMavenMetadata(String group, String name) {
+        return repository.getMavenMetadata(group, name);
+    }
+
+    @Override
+    public Stream<String> listVersions(String group, String name) {
+        return repository.listVersions(group, name);
+    }
+
+    @Override
+    public Stream<String> listFiles(String group, String name, String version) {
+        return repository.listFiles(group, name, version);
+    }
+
+    /**
+     * Forgets the identifier, a lookup of it that is in flight still returns its result but does not cache it.
+     */
+    public void invalidate(ArtifactIdentifier identifier) {
+        SimpleArtifactIdentifier key = SimpleArtifactIdentifier.copyOf(identifier);
+        invalidations.incrementAndGet();
+        Load load = loading.get(key);
+        if (load != null) {
+            synchronized (load) {
+                load.stale = true;
+            }
+        }
+        cache.remove(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), failures.sum(), loadTime.sum(), cache.size());
+    }
+
+    public static class Stats {
+        private final long hits, misses, failures, loadTime;
+        private final int size;
+
+        private Stats(long hits, long misses, long failures, long loadTime, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.failures = failures;
+            this.loadTime = loadTime;
+            this.size = size;
+        }
+
+        /**
+         * Lookups answered from the cache or by joining a lookup already in flight.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Lookups that called the underlying repository.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Total time spent in the underlying repository, in nanoseconds.
+         */
+        public long getLoadTime() {
+            return loadTime;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double)hits / total;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats[hits=%d, misses=%d, failures=%d, loadTime=%.3fms, size=%d]", hits, misses, failures, loadTime / 1e6, size);
+        }
+    }
+
+    private static class Load extends CompletableFuture<Artifact> {
+        private final Thread owner = Thread.currentThread();
+        private boolean stale; // Guarded by this
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.artifact.SimpleArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.HashFunction;
+
+/**
+ * A path relative to the root of a Maven layout repository, split into coordinates without using regular expressions.
+ * Artifact paths are parsed exactly like the pattern
+ * {@code (?<group>\S+)/(?<name>\S+)/(?<version>\S+)/\2-\3(?:-(?<classifier>[^.\s]+))?\.(?<extension>\S+)}
+ * would, including which split wins when several are possible.
+ */
+public final class MavenPath {
+    public static final String METADATA_FILE = "maven-metadata.xml";
+
+    public enum Kind {
+        /** A file belonging to a version, which is not one of the kinds below. */
+        ARTIFACT,
+        /** A checksum of another file of a version, such as {@code name-1.0.jar.sha1}. */
+        CHECKSUM,
+        POM,
+        /** Gradle module metadata. */
+        MODULE,
+        /** A {@code maven-metadata.xml} file, the group and name are those of its parent directories. */
+        METADATA,
+        DIRECTORY,
+        UNKNOWN
+    }
+
+    private static final MavenPath DIRECTORY = new MavenPath(Kind.DIRECTORY, null, null, null, null, null);
+    private static final MavenPath UNKNOWN = new MavenPath(Kind.UNKNOWN, null, null, null, null, null);
+
+    public static MavenPath parse(String path) {
+        int len = path.length();
+        int slashes = 0;
+        for (int x = 0; x < len; x++) {
+            char c = path.charAt(x);
+            if (isWhitespace(c))
+                return classifyOther(path);
+            if (c == '/')
+                slashes++;
+        }
+        if (slashes >= 3) {
+            int[] idx = new int[slashes];
+            for (int x = 0, y = 0; x < len; x++) {
+                if (path.charAt(x) == '/')
+                    idx[y++] = x;
+            }
+            // The regex is greedy, so prefer the longest group, then the longest name, then the longest version
+            for (int a = slashes - 3; a >= 0; a--) {
+                int s1 = idx[a];
+                if (s1 == 0)
+                    continue;
+                for (int b = slashes - 2; b > a; b--) {
+                    int s2 = idx[b];
+                    if (s2 == s1 + 1)
+                        continue;
+                    for (int c = slashes - 1; c > b; c--) {
+                        int s3 = idx[c];
+                        if (s3 == s2 + 1)
+                            continue;
+                        MavenPath ret = matchFile(path, s1, s2, s3);
+                        if (ret != null)
+                            return ret;
+                    }
+                }
+            }
+        }
+        return classifyOther(path);
+    }
+
+    // Matches '\2-\3(?:-(?<classifier>[^.\s]+))?\.(?<extension>\S+)' after the third slash, whitespace has already been rejected
+    private static MavenPath matchFile(String path, int s1, int s2, int s3) {
+        int len = path.length();
+        int nameLen = s2 - s1 - 1;
+        int versionLen = s3 - s2 - 1;
+        int start = s3 + 1;
+        int rest = start + nameLen + 1 + versionLen;
+        if (rest + 2 > len)
+            return null;
+        if (!path.regionMatches(start, path, s1 + 1, nameLen) || path.charAt(start + nameLen) != '-' || !path.regionMatches(start + nameLen + 1, path, s2 + 1, versionLen))
+            return null;
+
+        String classifier = null;
+        int ext;
+        char c = path.charAt(rest);
+        if (c == '.') {
+            ext = rest + 1;
+        } else if (c == '-') {
+            int dot = path.indexOf('.', rest + 1);
+            if (dot == -1 || dot == rest + 1 || dot + 1 == len)
+                return null;
+            classifier = path.substring(rest + 1, dot);
+            ext = dot + 1;
+        } else {
+            return null;
+        }
+
+        String extension = path.substring(ext);
+        Kind kind = Kind.ARTIFACT;
+        if (extension.equals("pom"))
+            kind = Kind.POM;
+        else if (extension.equals("module"))
+            kind = Kind.MODULE;
+        else if (getChecksum(extension) != null)
+            kind = Kind.CHECKSUM;
+        return new MavenPath(kind, path.substring(0, s1).replace('/', '.'), path.substring(s1 + 1, s2), path.substring(s2 + 1, s3), classifier, extension);
+    }
+
+    private static MavenPath classifyOther(String path) {
+        if (path.endsWith("/"))
+            return DIRECTORY;
+        int file = path.lastIndexOf('/');
+        if (file > 0 && path.regionMatches(file + 1, METADATA_FILE, 0, METADATA_FILE.length()) && path.length() == file + 1 + METADATA_FILE.length()) {
+            int dir = path.lastIndexOf('/', file - 1);
+            if (dir > 0 && dir + 1 < file)
+                return new MavenPath(Kind.METADATA, path.substring(0, dir).replace('/', '.'), path.substring(dir + 1, file), null, null, null);
+        }
+        return UNKNOWN;
+    }
+
+    private static HashFunction getChecksum(String extension) {
+        int dot = extension.lastIndexOf('.');
+        if (dot == -1)
+            return null;
+        for (HashFunction func : HashFunction.values()) {
+            if (extension.regionMatches(dot + 1, func.getExtension(), 0, func.getExtension().length()) && extension.length() - dot - 1 == func.getExtension().length())
+                return func;
+        }
+        return null;
+    }
+
+    // The characters matched by \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private final Kind kind;
+    private final String group, name, version, classifier, extension;
+
+    private MavenPath(Kind kind, String group, String name, String version, String classifier, String extension) {
+        this.kind = kind;
+        this.group = group;
+        this.name = name;
+        this.version = version;
+        this.classifier = classifier;
+        this.extension = extension;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Whether this path named a file of a specific version, in which case {@link #toIdentifier()} is available.
+     */
+    public boolean isVersioned() {
+        return version != null;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * The full extension, for checksums this includes the extension of the file it is for, like {@code jar.sha1}.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * The hash function of a {@link Kind#CHECKSUM} path, or null.
+     */
+    public HashFunction getChecksum() {
+        return kind == Kind.CHECKSUM ? getChecksum(extension) : null;
+    }
+
+    public ArtifactIdentifier toIdentifier() {
+        if (!isVersioned())
+            throw new IllegalStateException("Not a versioned path: " + this);
+        return new SimpleArtifactIdentifier(group, name, version, classifier, extension).intern();
+    }
+
+    /**
+     * Returns the identifier of the file a {@link Kind#CHECKSUM} path is the checksum of.
+     */
+    public ArtifactIdentifier toChecksummedIdentifier() {
+        HashFunction checksum = getChecksum();
+        if (checksum == null)
+            throw new IllegalStateException("Not a checksum path: " + this);
+        String target = extension.substring(0, extension.length() - checksum.getExtension().length() - 1);
+        return new SimpleArtifactIdentifier(group, name, version, classifier, target).intern();
+    }
+
+    @Override
+    public String toString() {
+        return kind + "[" + group + ":" + name + ":" + version + ":" + classifier + "@" + extension + "]";
+    }
+}
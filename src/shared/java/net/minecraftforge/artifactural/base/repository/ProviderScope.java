@@ -0,0 +1,127 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+
+/**
+ * Declares which coordinates a provider can answer for, so lookups for anything else can skip it without calling it.
+ * An identifier is in scope if its group is one of the groups or under one of the group prefixes, and its name is one of the names.
+ * Empty constraints allow anything, so {@link #all()} is every identifier.
+ */
+public final class ProviderScope implements Predicate<ArtifactIdentifier> {
+    private static final ProviderScope ALL = new ProviderScope(Collections.emptySet(), Collections.emptySet(), Collections.emptySet());
+
+    public static ProviderScope all() {
+        return ALL;
+    }
+
+    public static ProviderScope groups(String... groups) {
+        return ALL.withGroups(groups);
+    }
+
+    /**
+     * A prefix covers the group itself and every group below it: {@code net.minecraftforge} covers {@code net.minecraftforge.forge}
+     * but not {@code net.minecraftforgex}.
+     */
+    public static ProviderScope groupPrefixes(String... prefixes) {
+        return ALL.withGroupPrefixes(prefixes);
+    }
+
+    public static ProviderScope names(String... names) {
+        return ALL.withNames(names);
+    }
+
+    private final Set<String> groups, groupPrefixes, names;
+
+    private ProviderScope(Set<String> groups, Set<String> groupPrefixes, Set<String> names) {
+        this.groups = groups;
+        this.groupPrefixes = groupPrefixes;
+        this.names = names;
+    }
+
+    public ProviderScope withGroups(String... groups) {
+        return new ProviderScope(add(this.groups, groups), groupPrefixes, names);
+    }
+
+    public ProviderScope withGroupPrefixes(String... prefixes) {
+        return new ProviderScope(groups, add(this.groupPrefixes, prefixes), names);
+    }
+
+    public ProviderScope withNames(String... names) {
+        return new ProviderScope(groups, groupPrefixes, add(this.names, names));
+    }
+
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+    public Set<String> getGroupPrefixes() {
+        return groupPrefixes;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public boolean isAll() {
+        return groups.isEmpty() && groupPrefixes.isEmpty() && names.isEmpty();
+    }
+
+    public boolean matchesGroup(String group) {
+        if (groups.isEmpty() && groupPrefixes.isEmpty())
+            return true;
+        if (group == null)
+            return false;
+        if (groups.contains(group))
+            return true;
+        for (String prefix : groupPrefixes) {
+            if (group.startsWith(prefix) && (group.length() == prefix.length() || group.charAt(prefix.length()) == '.'))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean matchesName(String name) {
+        return names.isEmpty() || names.contains(name);
+    }
+
+    @Override
+    public boolean test(ArtifactIdentifier identifier) {
+        return matchesGroup(identifier.getGroup()) && matchesName(identifier.getName());
+    }
+
+    private static Set<String> add(Set<String> existing, String[] values) {
+        Set<String> ret = new LinkedHashSet<>(existing);
+        ret.addAll(Arrays.asList(values));
+        return Collections.unmodifiableSet(ret);
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderScope[groups=" + groups + ", groupPrefixes=" + groupPrefixes + ", names=" + names + "]";
+    }
+}
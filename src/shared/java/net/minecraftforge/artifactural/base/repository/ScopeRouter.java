@@ -0,0 +1,90 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.PrefixTrie;
+
+/**
+ * A list of {@link ProviderScope}s compiled into hash tables and a group prefix trie, answering which of them contain an identifier
+ * with a couple of lookups and one walk over the group, however many scopes there are.
+ */
+class ScopeRouter {
+    private final int size;
+    private final BitSet anyGroup = new BitSet();
+    private final BitSet anyName = new BitSet();
+    private final Map<String, BitSet> groups = new HashMap<>();
+    private final PrefixTrie groupPrefixes = new PrefixTrie();
+    private final Map<String, BitSet> names = new HashMap<>();
+
+    ScopeRouter(List<ProviderScope> scopes) {
+        this.size = scopes.size();
+        for (int x = 0; x < scopes.size(); x++) {
+            ProviderScope scope = scopes.get(x);
+            if (scope.getGroups().isEmpty() && scope.getGroupPrefixes().isEmpty())
+                anyGroup.set(x);
+            for (String group : scope.getGroups())
+                groups.computeIfAbsent(group, k -> new BitSet()).set(x);
+            for (String prefix : scope.getGroupPrefixes()) {
+                // The prefix itself is an exact group, anything below it has to continue with a dot
+                groups.computeIfAbsent(prefix, k -> new BitSet()).set(x);
+                groupPrefixes.add(prefix + '.', x);
+            }
+
+            if (scope.getNames().isEmpty())
+                anyName.set(x);
+            for (String name : scope.getNames())
+                names.computeIfAbsent(name, k -> new BitSet()).set(x);
+        }
+    }
+
+    /**
+     * Returns true if every scope is {@link ProviderScope#all()}, in which case routing is pointless.
+     */
+    boolean isTrivial() {
+        return anyGroup.cardinality() == size && anyName.cardinality() == size;
+    }
+
+    BitSet route(ArtifactIdentifier identifier) {
+        BitSet ret = (BitSet)anyName.clone();
+        BitSet name = identifier.getName() == null ? null : names.get(identifier.getName());
+        if (name != null)
+            ret.or(name);
+        if (ret.isEmpty())
+            return ret;
+
+        BitSet group = (BitSet)anyGroup.clone();
+        String value = identifier.getGroup();
+        if (value != null) {
+            BitSet exact = groups.get(value);
+            if (exact != null)
+                group.or(exact);
+            if (!groupPrefixes.isEmpty())
+                groupPrefixes.collect(value, group);
+        }
+        ret.and(group);
+        return ret;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Something that knows the {@link ProviderScope}s of the providers behind it, so lookups for coordinates outside all of them
+ * can be filtered out before they reach it.
+ * <p>
+ * Whoever filters on the scopes reads them once, so they must cover every identifier the object will ever be asked for,
+ * as it is asked for it, not after any mapping. Implementations whose providers can still change, or that can not tell
+ * what their scopes mean for the identifiers they are given, report {@link ProviderScope#all()} until {@link #freeze()}.
+ */
+public interface Scoped {
+
+    /**
+     * Returns the scope of every provider. If any of them is {@link ProviderScope#all()}, or the list is empty, nothing can be filtered.
+     */
+    List<ProviderScope> getScopes();
+
+    /**
+     * Fixes the providers behind this, so the scopes returned afterwards stay valid. Adding providers afterwards may fail.
+     * Only the owner of the providers knows when they are final, so this is never called on its behalf.
+     */
+    default void freeze() {
+    }
+
+    /**
+     * Returns the scopes of the object if it is {@link Scoped}, otherwise a single {@link ProviderScope#all()}.
+     */
+    static List<ProviderScope> of(Object obj) {
+        return obj instanceof Scoped ? ((Scoped)obj).getScopes() : Collections.singletonList(ProviderScope.all());
+    }
+}
@@ -19,21 +19,49 @@
 
 package net.minecraftforge.artifactural.base.repository;
 
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
 import net.minecraftforge.artifactural.api.artifact.Artifact;
 import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
 import net.minecraftforge.artifactural.api.repository.ArtifactProvider;
+import net.minecraftforge.artifactural.api.repository.LookupCost;
 import net.minecraftforge.artifactural.api.repository.Repository;
 
-public class SimpleRepository implements Repository {
+public class SimpleRepository implements Repository, Scoped {
 
     public static Repository of(ArtifactProvider<ArtifactIdentifier> provider) {
-        return new SimpleRepository(provider);
+        return new SimpleRepository(provider, null);
+    }
+
+    /**
+     * Creates a repository that lists the versions declared in the index to Gradle, so dynamic versions can be resolved.
+     */
+    public static Repository of(ArtifactProvider<ArtifactIdentifier> provider, VersionIndex versions) {
+        return new SimpleRepository(provider, versions);
     }
 
     private final ArtifactProvider<ArtifactIdentifier> provider;
+    private final VersionIndex versions;
 
-    private SimpleRepository(ArtifactProvider<ArtifactIdentifier> provider) {
+    private SimpleRepository(ArtifactProvider<ArtifactIdentifier> provider, VersionIndex versions) {
         this.provider = provider;
+        this.versions = versions;
+    }
+
+    @Override
+    public List<ProviderScope> getScopes() {
+        return Scoped.of(provider);
+    }
+
+    @Override
+    public void freeze() {
+        if (provider instanceof Scoped)
+            ((Scoped)provider).freeze();
     }
 
     @Override
@@ -41,4 +69,34 @@ public class SimpleRepository implements Repository {
         return provider.getArtifact(identifier);
     }
 
+    @Override
+    public Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers) {
+        return provider.getArtifacts(identifiers);
+    }
+
+    @Override
+    public Map<ArtifactIdentifier, Artifact> getArtifacts(Collection<? extends ArtifactIdentifier> identifiers, Executor executor) {
+        return provider.getArtifacts(identifiers, executor);
+    }
+
+    @Override
+    public LookupCost estimateCost(ArtifactIdentifier identifier) {
+        return provider.estimateCost(identifier);
+    }
+
+    @Override
+    public File getMavenMetadata(String group, String name) {
+        return versions == null ? null : versions.getMavenMetadata(group, name);
+    }
+
+    @Override
+    public Stream<String> listVersions(String group, String name) {
+        return versions == null ? Stream.empty() : versions.getVersions(group, name).stream();
+    }
+
+    @Override
+    public Stream<String> listFiles(String group, String name, String version) {
+        return versions == null ? Stream.empty() : versions.getFiles(group, name, version).stream();
+    }
+
 }
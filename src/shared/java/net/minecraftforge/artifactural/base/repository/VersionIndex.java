@@ -0,0 +1,208 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.base.util.AtomicFiles;
+import net.minecraftforge.artifactural.base.util.XmlText;
+
+/**
+ * Versions that providers declared they can serve, per group and name, written out as {@code maven-metadata.xml} files
+ * under a root directory so Gradle can resolve dynamic versions such as {@code 1.+}.
+ * Declaring whole identifiers also records their file names, so version directories can be listed.
+ *
+ * A file is only generated when it is asked for after its versions changed, and only rewritten if its contents differ from
+ * what is already on disk, so it stays valid across runs as long as the same versions are declared.
+ */
+public class VersionIndex {
+    /**
+     * Orders versions by their dot or dash separated parts, numbers numerically and after words, which is close to how Gradle sorts them.
+     */
+    public static final Comparator<String> VERSION_ORDER = VersionIndex::compareVersions;
+
+    private final File root;
+    private final Map<String, Module> modules = new HashMap<>();
+
+    public VersionIndex(File root) {
+        this.root = root;
+    }
+
+    public void declare(String group, String name, String... versions) {
+        declare(group, name, Arrays.asList(versions));
+    }
+
+    public synchronized void declare(String group, String name, Collection<String> versions) {
+        Module module = modules.computeIfAbsent(group + ':' + name, k -> new Module());
+        if (module.versions.addAll(versions))
+            module.dirty = true;
+    }
+
+    /**
+     * Declares the identifier's version, and its file name within that version.
+     */
+    public synchronized void declare(ArtifactIdentifier identifier) {
+        Module module = modules.computeIfAbsent(identifier.getGroup() + ':' + identifier.getName(), k -> new Module());
+        if (module.versions.add(identifier.getVersion()))
+            module.dirty = true;
+        String file = identifier.getName() + '-' + identifier.getVersion() + (identifier.getClassifier() == null ? "" : '-' + identifier.getClassifier()) + '.' + identifier.getExtension();
+        module.files.computeIfAbsent(identifier.getVersion(), k -> new TreeSet<>()).add(file);
+    }
+
+    public synchronized void remove(String group, String name, String version) {
+        Module module = modules.get(group + ':' + name);
+        if (module != null && module.versions.remove(version)) {
+            module.files.remove(version);
+            module.dirty = true;
+        }
+    }
+
+    public synchronized List<String> getVersions(String group, String name) {
+        Module module = modules.get(group + ':' + name);
+        return module == null ? new ArrayList<>() : new ArrayList<>(module.versions);
+    }
+
+    /**
+     * Returns the file names declared for the version, sorted.
+     */
+    public synchronized List<String> getFiles(String group, String name, String version) {
+        Module module = modules.get(group + ':' + name);
+        TreeSet<String> files = module == null ? null : module.files.get(version);
+        return files == null ? new ArrayList<>() : new ArrayList<>(files);
+    }
+
+    /**
+     * Returns the {@code maven-metadata.xml} file for the module, generating it if needed, or null if no versions were declared for it.
+     * This has the same contract as {@link net.minecraftforge.artifactural.api.repository.Repository#getMavenMetadata(String, String)}.
+     */
+    public synchronized File getMavenMetadata(String group, String name) {
+        Module module = modules.get(group + ':' + name);
+        if (module == null || module.versions.isEmpty())
+            return null;
+
+        File file = new File(root, group.replace('.', '/') + '/' + name + "/maven-metadata.xml");
+        if (module.dirty || !file.exists()) {
+            try {
+                write(file, generate(group, name, module.versions).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            module.dirty = false;
+        }
+        return file;
+    }
+
+    // Leaves the file untouched if it already has this content, so its timestamp keeps meaning something
+    private static void write(File file, byte[] data) throws IOException {
+        if (file.exists() && file.length() == data.length && Arrays.equals(Files.readAllBytes(file.toPath()), data))
+            return;
+        AtomicFiles.write(file, data);
+    }
+
+    private static String generate(String group, String name, Collection<String> versions) {
+        String latest = null, release = null;
+        for (String version : versions) {
+            latest = version;
+            if (!version.endsWith("-SNAPSHOT"))
+                release = version;
+        }
+
+        StringBuilder ret = new StringBuilder();
+        ret.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        ret.append("<metadata>\n");
+        ret.append("  <groupId>").append(XmlText.escape(group)).append("</groupId>\n");
+        ret.append("  <artifactId>").append(XmlText.escape(name)).append("</artifactId>\n");
+        ret.append("  <versioning>\n");
+        ret.append("    <latest>").append(XmlText.escape(latest)).append("</latest>\n");
+        if (release != null)
+            ret.append("    <release>").append(XmlText.escape(release)).append("</release>\n");
+        ret.append("    <versions>\n");
+        for (String version : versions)
+            ret.append("      <version>").append(XmlText.escape(version)).append("</version>\n");
+        ret.append("    </versions>\n");
+        ret.append("  </versioning>\n");
+        ret.append("</metadata>\n");
+        return ret.toString();
+    }
+
+    private static int compareVersions(String a, String b) {
+        String[] left = a.split("[.\\-]");
+        String[] right = b.split("[.\\-]");
+        for (int x = 0; x < Math.min(left.length, right.length); x++) {
+            int ret = comparePart(left[x], right[x]);
+            if (ret != 0)
+                return ret;
+        }
+        // A trailing number makes a version newer (1.0.1), a trailing word older (1.0-rc1, 1.0-SNAPSHOT)
+        if (left.length > right.length)
+            return isNumber(left[right.length]) ? 1 : -1;
+        if (left.length < right.length)
+            return isNumber(right[left.length]) ? -1 : 1;
+        return a.compareTo(b); // Only differ in separators
+    }
+
+    private static int comparePart(String a, String b) {
+        boolean numA = isNumber(a), numB = isNumber(b);
+        if (numA && numB) {
+            String x = stripZeros(a), y = stripZeros(b);
+            return x.length() != y.length() ? x.length() - y.length() : x.compareTo(y);
+        }
+        if (numA != numB)
+            return numA ? 1 : -1;
+        return a.compareTo(b);
+    }
+
+    private static boolean isNumber(String value) {
+        if (value.isEmpty())
+            return false;
+        for (int x = 0; x < value.length(); x++) {
+            if (value.charAt(x) < '0' || value.charAt(x) > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private static String stripZeros(String value) {
+        int x = 0;
+        while (x < value.length() - 1 && value.charAt(x) == '0')
+            x++;
+        return value.substring(x);
+    }
+
+    private static class Module {
+        private final TreeSet<String> versions = new TreeSet<>(VERSION_ORDER);
+        private final Map<String, TreeSet<String>> files = new TreeMap<>(VERSION_ORDER);
+        private boolean dirty = true;
+    }
+}
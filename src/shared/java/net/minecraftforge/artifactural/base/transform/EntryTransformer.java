@@ -0,0 +1,66 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.IOException;
+
+/**
+ * Transforms the contents of a single entry of a jar, independently of every other entry.
+ */
+@FunctionalInterface
+public interface EntryTransformer {
+
+    /**
+     * @param name Full name of the entry inside the jar
+     * @param data Uncompressed contents of the entry
+     * @return The new contents. Returning {@code data} itself marks the entry as unchanged, returning {@code null} removes it.
+     */
+    byte[] transform(String name, byte[] data) throws IOException;
+
+    /**
+     * Entries this returns {@code false} for are copied to the output without being read.
+     */
+    default boolean appliesTo(String name) {
+        return true;
+    }
+
+    /**
+     * Returns a transformer that passes each entry through this one and then {@code other}, skipping whichever does not apply to it.
+     * If both leave an entry unchanged, so does the result.
+     */
+    default EntryTransformer andThen(EntryTransformer other) {
+        EntryTransformer current = this;
+        return new EntryTransformer() {
+            @Override
+            public byte[] transform(String name, byte[] data) throws IOException {
+                byte[] ret = current.appliesTo(name) ? current.transform(name, data) : data;
+                if (ret == null || !other.appliesTo(name))
+                    return ret;
+                return other.transform(name, ret);
+            }
+
+            @Override
+            public boolean appliesTo(String name) {
+                return current.appliesTo(name) || other.appliesTo(name);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+
+/**
+ * A chain of {@link PerEntryTransformer}s run as one pass over the jar, on the engine of the first of them.
+ *
+ * It behaves exactly like the chain {@link ArtifactTransformer#andThen(ArtifactTransformer)} would build without fusing:
+ * every stage runs and every stage's {@link #withInfo(ArtifactMetadata)} is applied, whatever the stages' {@code appliesTo} say,
+ * and like that chain it applies to every artifact.
+ */
+class FusedTransformer implements PerEntryTransformer {
+
+    static FusedTransformer of(PerEntryTransformer first, PerEntryTransformer second) {
+        List<PerEntryTransformer> stages = new ArrayList<>();
+        for (PerEntryTransformer stage : new PerEntryTransformer[] { first, second }) {
+            if (stage instanceof FusedTransformer)
+                stages.addAll(((FusedTransformer)stage).stages);
+            else
+                stages.add(stage);
+        }
+        return new FusedTransformer(stages);
+    }
+
+    private final List<PerEntryTransformer> stages;
+
+    private FusedTransformer(List<PerEntryTransformer> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    @Override
+    public Artifact transform(Artifact artifact) {
+        return fuse().transform(artifact);
+    }
+
+    @Override
+    public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+        for (PerEntryTransformer stage : stages)
+            metadata = stage.withInfo(metadata);
+        return metadata;
+    }
+
+    @Override
+    public EntryTransformer getEntryTransformer() {
+        return fuse().getEntryTransformer();
+    }
+
+    @Override
+    public PerEntryTransformer withEntries(EntryTransformer entries, UnaryOperator<ArtifactMetadata> info) {
+        return stages.get(0).withEntries(entries, info);
+    }
+
+    @Override
+    public ArtifactTransformer andThen(ArtifactTransformer other) {
+        if (other instanceof PerEntryTransformer)
+            return of(this, (PerEntryTransformer)other);
+        return PerEntryTransformer.super.andThen(other);
+    }
+
+    private PerEntryTransformer fuse() {
+        EntryTransformer entries = stages.get(0).getEntryTransformer();
+        for (int x = 1; x < stages.size(); x++)
+            entries = entries.andThen(stages.get(x).getEntryTransformer());
+        return stages.get(0).withEntries(entries, this::withInfo);
+    }
+
+}
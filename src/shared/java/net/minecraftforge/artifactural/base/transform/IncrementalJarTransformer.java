@@ -0,0 +1,244 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+import net.minecraftforge.artifactural.base.artifact.StreamableArtifact;
+import net.minecraftforge.artifactural.base.util.AtomicFiles;
+import net.minecraftforge.artifactural.base.util.BoundedPipe;
+import net.minecraftforge.artifactural.base.util.HashFunction;
+import net.minecraftforge.artifactural.base.util.PatternReplace;
+import net.minecraftforge.artifactural.base.util.RawZipFile;
+import net.minecraftforge.artifactural.base.util.RawZipOutput;
+
+/**
+ * Applies an {@link EntryTransformer} to a jar incrementally.
+ *
+ * For every artifact it transforms, this keeps the previous output and a digest of every input entry that went through the transformer,
+ * in a state directory keyed by the artifact's coordinates without its version. On the next run, for example against a new version of the same jar,
+ * only added or changed entries are transformed, removed entries are dropped, and everything else is copied verbatim from the previous output.
+ *
+ * The {@code key} identifies the transformation itself, changing it discards all previous state. It is also added to the output's metadata,
+ * together with the entry transformer's class unless that is a lambda, so it must change whenever the transformation does.
+ */
+public class IncrementalJarTransformer implements ArtifactTransformer {
+    private static final String PATTERN = "[group]/[name](-[classifier]).[extension]/[key]";
+    // One lock per state directory, dropped again once nobody holds or waits for it
+    private static final Map<File, Lock> LOCKS = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final EntryTransformer transformer;
+    private final File stateDir;
+
+    public IncrementalJarTransformer(String key, EntryTransformer transformer, File stateDir) {
+        this.key = key;
+        this.transformer = transformer;
+        this.stateDir = stateDir;
+    }
+
+    @Override
+    public Artifact transform(Artifact artifact) {
+        File state = getStateDirectory(artifact.getIdentifier());
+        return StreamableArtifact.ofStreamable(artifact.getIdentifier(), artifact.getType(), () -> {
+            RawZipFile input;
+            try {
+                input = open(artifact);
+            } catch (RawZipFile.UnsupportedArchiveException e) {
+                // Nothing can be reused without RawZipFile, so transform the whole jar every time
+                return JarRewriter.stream(artifact, StreamingTransformer.ofEntries(transformer));
+            }
+            return BoundedPipe.pump(output -> {
+                // The state is only touched under the lock, the result is streamed after it is released,
+                // so a reader that stops reading can not block other transforms of the same artifact
+                File result;
+                try (RawZipFile in = input) {
+                    Lock lock = LOCKS.compute(state, (k, v) -> {
+                        if (v == null)
+                            v = new Lock();
+                        v.users++;
+                        return v;
+                    });
+                    try {
+                        synchronized (lock) {
+                            result = rewrite(in, state);
+                        }
+                    } finally {
+                        LOCKS.computeIfPresent(state, (k, v) -> --v.users == 0 ? null : v);
+                    }
+                }
+                try {
+                    Files.copy(result.toPath(), output);
+                } finally {
+                    result.delete();
+                }
+            });
+        }).withMetadata(withInfo(artifact.getMetadata()));
+    }
+
+    @Override
+    public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+        // Lambda class names change between runs, so they can not be part of a stable identity
+        Class<?> cls = transformer.getClass();
+        return metadata.with("transform", "incremental:" + key + (cls.isSynthetic() ? "" : ':' + cls.getName()));
+    }
+
+    public File getStateDirectory(ArtifactIdentifier identifier) {
+        Map<String, String> names = new HashMap<>();
+        names.put("group", identifier.getGroup());
+        names.put("name", identifier.getName());
+        names.put("classifier", identifier.getClassifier());
+        names.put("extension", identifier.getExtension());
+        names.put("key", HashFunction.SHA1.hash(key));
+        return new File(stateDir, PatternReplace.replace(PATTERN, names));
+    }
+
+    private static RawZipFile open(Artifact artifact) throws IOException {
+        if (artifact instanceof Artifact.Cached)
+            return RawZipFile.open(((Artifact.Cached)artifact).asFile());
+        try (InputStream in = artifact.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int read;
+            while ((read = in.read(buf)) != -1)
+                out.write(buf, 0, read);
+            return RawZipFile.of(out.toByteArray());
+        }
+    }
+
+    // Returns a private copy of the new output, which the caller streams and deletes
+    private File rewrite(RawZipFile input, File state) throws IOException {
+        File jar = new File(state, "output.jar");
+        File index = new File(state, "entries.txt");
+        state.mkdirs();
+        File tmp = File.createTempFile("output", ".jar.tmp", state);
+
+        Map<String, String> previous = jar.exists() ? readIndex(index) : new HashMap<>();
+        Map<String, String> current = new LinkedHashMap<>();
+        try (RawZipFile last = previous.isEmpty() ? null : RawZipFile.open(jar);
+             OutputStream file = new BufferedOutputStream(new FileOutputStream(tmp))) {
+            RawZipOutput zout = new RawZipOutput(file);
+            for (RawZipFile.Entry entry : input.getEntries()) {
+                if (entry.isDirectory() || !transformer.appliesTo(entry.getName())) {
+                    zout.copy(input, entry);
+                    continue;
+                }
+
+                String digest = entry.getMethod() + ":" + HashFunction.SHA1.hash(input.readRaw(entry));
+                String prev = previous.get(entry.getName());
+                if (prev != null && prev.substring(1).equals(digest)) {
+                    RawZipFile.Entry reuse = prev.charAt(0) == '+' ? last.getEntry(entry.getName()) : null;
+                    if (reuse != null || prev.charAt(0) == '-') {
+                        current.merge(entry.getName(), prev, (a, b) -> "!");
+                        if (reuse != null)
+                            zout.copy(last, reuse);
+                        continue;
+                    }
+                }
+
+                byte[] data = input.read(entry);
+                byte[] result = transformer.transform(entry.getName(), data);
+                current.merge(entry.getName(), (result == null ? '-' : '+') + digest, (a, b) -> "!");
+                if (result == null)
+                    continue;
+                if (result == data)
+                    zout.copy(input, entry);
+                else
+                    zout.write(entry, result);
+            }
+            zout.finish();
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+
+        // Drop the index first, a crash between the two moves then only costs a full rebuild instead of pairing an index with the wrong jar
+        try {
+            Files.deleteIfExists(index.toPath());
+            File copy = AtomicFiles.tempFor(jar);
+            Files.copy(tmp.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            AtomicFiles.replace(copy, jar);
+            writeIndex(index, current);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+        return tmp;
+    }
+
+    // Each line is '<+ or -><method>:<sha1 of the stored bytes> <name>', where - marks entries the transformer removed.
+    // Names that appear more than once can not be told apart, they are stored as '! <name>' and never reused
+    private static Map<String, String> readIndex(File index) throws IOException {
+        Map<String, String> ret = new HashMap<>();
+        if (!index.exists())
+            return ret;
+        try (BufferedReader reader = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int idx = line.indexOf(' ');
+                if (idx != -1)
+                    ret.put(line.substring(idx + 1), line.substring(0, idx));
+            }
+        }
+        return ret;
+    }
+
+    private static void writeIndex(File index, Map<String, String> entries) throws IOException {
+        // The lock only covers this process, other builds sharing the cache may be writing the same index
+        File tmp = AtomicFiles.tempFor(index);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+        AtomicFiles.replace(tmp, index);
+    }
+
+    private static class Lock {
+        private int users; // Only changed inside the compute calls on LOCKS
+    }
+
+}
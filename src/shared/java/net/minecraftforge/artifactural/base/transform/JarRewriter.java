@@ -0,0 +1,159 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.base.artifact.StreamableArtifact;
+import net.minecraftforge.artifactural.base.util.BoundedPipe;
+import net.minecraftforge.artifactural.base.util.RawZipFile;
+import net.minecraftforge.artifactural.base.util.RawZipOutput;
+
+/**
+ * Rewrites a jar through an {@link EntryTransformer}, copying the compressed bytes and CRC of every entry
+ * that is not transformed or comes back unchanged, and only compressing entries whose contents actually changed.
+ * When a transformer only touches a handful of classes this turns the rewrite into mostly sequential I/O.
+ */
+public class JarRewriter {
+    private static final Object UNCHANGED = new Object();
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Returns a lazy artifact that rewrites the cached file of the given artifact every time it is opened.
+     *
+     * @param pool Pool to transform and compress entries on, or {@code null} to do it on the writing thread
+     * @param window Maximum number of entries in flight when using a pool
+     * @param fallback Streams the artifact instead for archives {@link RawZipFile} can not read
+     */
+    public static Artifact transform(Artifact.Cached artifact, ArtifactMetadata metadata, EntryTransformer transformer, ForkJoinPool pool, int window, StreamingTransformer fallback) {
+        return StreamableArtifact.ofStreamable(artifact.getIdentifier(), artifact.getType(), () -> {
+            RawZipFile zip;
+            try {
+                zip = RawZipFile.open(artifact.asFile());
+            } catch (RawZipFile.UnsupportedArchiveException e) {
+                return stream(artifact, fallback);
+            }
+            return BoundedPipe.pump(output -> {
+                try (RawZipFile input = zip) {
+                    rewrite(input, output, transformer, pool, window);
+                }
+            });
+        }).withMetadata(metadata);
+    }
+
+    // The same pipe StreamingTransformer sets up, without the artifact around it
+    static InputStream stream(Artifact artifact, StreamingTransformer transformer) throws IOException {
+        InputStream input = artifact.openStream();
+        return BoundedPipe.pump(output -> {
+            try (InputStream in = input) {
+                transformer.transform(in, output);
+            }
+        });
+    }
+
+    public static void rewrite(RawZipFile input, OutputStream output, EntryTransformer transformer) throws IOException {
+        rewrite(input, output, transformer, null, 1);
+    }
+
+    public static void rewrite(RawZipFile input, OutputStream output, EntryTransformer transformer, ForkJoinPool pool, int window) throws IOException {
+        RawZipOutput zout = new RawZipOutput(output);
+        Deque<Pending> pending = new ArrayDeque<>();
+        try {
+            for (RawZipFile.Entry entry : input.getEntries()) {
+                Pending next = new Pending(entry);
+                if (!entry.isDirectory() && transformer.appliesTo(entry.getName())) {
+                    if (pool == null) {
+                        next.result = process(input, entry, transformer);
+                    } else {
+                        next.task = pool.submit(() -> {
+                            try {
+                                return process(input, entry, transformer);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                }
+                pending.add(next);
+
+                while (!pending.isEmpty() && (pending.size() > window || pending.peek().isDone()))
+                    pending.poll().write(input, zout);
+            }
+            while (!pending.isEmpty())
+                pending.poll().write(input, zout);
+        } finally {
+            for (Pending left : pending) {
+                if (left.task != null)
+                    left.task.cancel(false);
+            }
+        }
+        zout.finish();
+    }
+
+    private static Object process(RawZipFile input, RawZipFile.Entry entry, EntryTransformer transformer) throws IOException {
+        byte[] data = input.read(entry);
+        byte[] result = transformer.transform(entry.getName(), data);
+        if (result == null)
+            return REMOVED;
+        if (result == data || Arrays.equals(result, data))
+            return UNCHANGED;
+        return RawZipOutput.compress(entry.getMethod(), result);
+    }
+
+    private static class Pending {
+        private final RawZipFile.Entry entry;
+        private ForkJoinTask<Object> task;
+        private Object result = UNCHANGED;
+
+        private Pending(RawZipFile.Entry entry) {
+            this.entry = entry;
+        }
+
+        private boolean isDone() {
+            return task == null || task.isDone();
+        }
+
+        private void write(RawZipFile input, RawZipOutput zout) throws IOException {
+            Object ret = result;
+            if (task != null) {
+                try {
+                    ret = task.join();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            if (ret == UNCHANGED)
+                zout.copy(input, entry);
+            else if (ret != REMOVED)
+                zout.write(entry, (RawZipOutput.Compressed)ret);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.base.util.ZipNames;
+
+/**
+ * Applies an {@link EntryTransformer} to every entry of a jar in parallel on a {@link ForkJoinPool}.
+ *
+ * Entries are read sequentially and handed to the pool as soon as they are read, and written out in their original order
+ * as soon as they are done, so the output is identical no matter how many threads are used.
+ * At most {@code window} entries are in flight at once, which bounds the memory used for large jars.
+ * Jars that are already cached on disk are rewritten with {@link JarRewriter}, which also compresses the changed entries on the pool,
+ * unless they are Zip64 archives.
+ */
+public class ParallelJarTransformer implements StreamingTransformer, PerEntryTransformer {
+
+    private final EntryTransformer transformer;
+    private final ForkJoinPool pool;
+    private final int window;
+    private final UnaryOperator<ArtifactMetadata> info;
+
+    public ParallelJarTransformer(EntryTransformer transformer) {
+        this(transformer, ForkJoinPool.commonPool());
+    }
+
+    public ParallelJarTransformer(EntryTransformer transformer, ForkJoinPool pool) {
+        this(transformer, pool, pool.getParallelism() * 64);
+    }
+
+    public ParallelJarTransformer(EntryTransformer transformer, ForkJoinPool pool, int window) {
+        this(transformer, pool, window, null);
+    }
+
+    private ParallelJarTransformer(EntryTransformer transformer, ForkJoinPool pool, int window, UnaryOperator<ArtifactMetadata> info) {
+        if (window < 1)
+            throw new IllegalArgumentException("Window must be at least 1: " + window);
+        this.transformer = transformer;
+        this.pool = pool;
+        this.window = window;
+        this.info = info;
+    }
+
+    @Override
+    public Artifact transform(Artifact artifact) {
+        if (artifact instanceof Artifact.Cached)
+            return JarRewriter.transform((Artifact.Cached)artifact, withInfo(artifact.getMetadata()), transformer, pool, window, this);
+        return StreamingTransformer.super.transform(artifact);
+    }
+
+    @Override
+    public void transform(InputStream input, OutputStream output) throws IOException {
+        ZipInputStream zin = new ZipInputStream(input, ZipNames.CHARSET);
+        ZipOutputStream zout = new ZipOutputStream(output);
+        Deque<Pending> pending = new ArrayDeque<>();
+        byte[] buf = new byte[8192];
+        try {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                byte[] data = read(zin, buf);
+                Pending next = new Pending(entry, data);
+                if (!entry.isDirectory() && transformer.appliesTo(entry.getName())) {
+                    String name = entry.getName();
+                    next.task = pool.submit(() -> {
+                        try {
+                            return transformer.transform(name, data);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                pending.add(next);
+
+                while (!pending.isEmpty() && (pending.size() > window || pending.peek().isDone()))
+                    pending.poll().write(zout);
+            }
+            while (!pending.isEmpty())
+                pending.poll().write(zout);
+        } finally {
+            for (Pending left : pending) {
+                if (left.task != null)
+                    left.task.cancel(false);
+            }
+        }
+        zout.finish();
+    }
+
+    @Override
+    public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+        return info == null ? metadata : info.apply(metadata);
+    }
+
+    @Override
+    public EntryTransformer getEntryTransformer() {
+        return transformer;
+    }
+
+    @Override
+    public PerEntryTransformer withEntries(EntryTransformer entries, UnaryOperator<ArtifactMetadata> info) {
+        return new ParallelJarTransformer(entries, pool, window, info);
+    }
+
+    private static byte[] read(InputStream in, byte[] buf) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read(buf)) != -1)
+            out.write(buf, 0, read);
+        return out.toByteArray();
+    }
+
+    private static class Pending {
+        private final ZipEntry entry;
+        private final byte[] data;
+        private ForkJoinTask<byte[]> task;
+
+        private Pending(ZipEntry entry, byte[] data) {
+            this.entry = entry;
+            this.data = data;
+        }
+
+        private boolean isDone() {
+            return task == null || task.isDone();
+        }
+
+        private void write(ZipOutputStream zout) throws IOException {
+            byte[] result = data;
+            if (task != null) {
+                try {
+                    result = task.join();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            if (result == null)
+                return;
+            zout.putNextEntry(StreamingJarTransformer.copy(entry));
+            zout.write(result);
+            zout.closeEntry();
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.util.function.UnaryOperator;
+
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+
+/**
+ * A transformer that does nothing but run an {@link EntryTransformer} over every entry of a jar.
+ *
+ * Chaining two of these with {@link #andThen(ArtifactTransformer)} fuses them into one transformer on this one's engine,
+ * so every entry is read once, passed through both stages in memory and written once.
+ * Like any other chain, the stages' own {@code appliesTo} are not consulted, only the chain's.
+ * Any other transformer composes as usual.
+ */
+public interface PerEntryTransformer extends ArtifactTransformer {
+
+    EntryTransformer getEntryTransformer();
+
+    /**
+     * Returns a transformer running {@code entries} through the same engine as this one, describing its output with {@code info}.
+     */
+    PerEntryTransformer withEntries(EntryTransformer entries, UnaryOperator<ArtifactMetadata> info);
+
+    @Override
+    default ArtifactTransformer andThen(ArtifactTransformer other) {
+        if (!(other instanceof PerEntryTransformer))
+            return ArtifactTransformer.super.andThen(other);
+        return FusedTransformer.of(this, (PerEntryTransformer)other);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.base.util.ZipNames;
+
+/**
+ * Streams a jar entry by entry, passing each entry the {@link EntryTransformer} applies to through it.
+ * Only one entry is held in memory at a time. Jars that are already cached on disk are rewritten with {@link JarRewriter},
+ * so entries that are not changed are copied without being recompressed, unless they are Zip64 archives.
+ */
+public class StreamingJarTransformer implements StreamingTransformer, PerEntryTransformer {
+
+    private final EntryTransformer transformer;
+    private final UnaryOperator<ArtifactMetadata> info;
+
+    public StreamingJarTransformer(EntryTransformer transformer) {
+        this(transformer, null);
+    }
+
+    private StreamingJarTransformer(EntryTransformer transformer, UnaryOperator<ArtifactMetadata> info) {
+        this.transformer = transformer;
+        this.info = info;
+    }
+
+    @Override
+    public Artifact transform(Artifact artifact) {
+        if (artifact instanceof Artifact.Cached)
+            return JarRewriter.transform((Artifact.Cached)artifact, withInfo(artifact.getMetadata()), transformer, null, 1, this);
+        return StreamingTransformer.super.transform(artifact);
+    }
+
+    @Override
+    public void transform(InputStream input, OutputStream output) throws IOException {
+        ZipInputStream zin = new ZipInputStream(input, ZipNames.CHARSET);
+        ZipOutputStream zout = new ZipOutputStream(output);
+        byte[] buf = new byte[8192];
+        ZipEntry entry;
+        while ((entry = zin.getNextEntry()) != null) {
+            if (entry.isDirectory() || !transformer.appliesTo(entry.getName())) {
+                zout.putNextEntry(copy(entry));
+                int read;
+                while ((read = zin.read(buf)) != -1)
+                    zout.write(buf, 0, read);
+                zout.closeEntry();
+                continue;
+            }
+
+            byte[] data = readEntry(zin, buf);
+            byte[] result = transformer.transform(entry.getName(), data);
+            if (result == null)
+                continue;
+            zout.putNextEntry(copy(entry));
+            zout.write(result);
+            zout.closeEntry();
+        }
+        zout.finish();
+    }
+
+    @Override
+    public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+        return info == null ? metadata : info.apply(metadata);
+    }
+
+    @Override
+    public EntryTransformer getEntryTransformer() {
+        return transformer;
+    }
+
+    @Override
+    public PerEntryTransformer withEntries(EntryTransformer entries, UnaryOperator<ArtifactMetadata> info) {
+        return new StreamingJarTransformer(entries, info);
+    }
+
+    private static byte[] readEntry(InputStream in, byte[] buf) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read(buf)) != -1)
+            out.write(buf, 0, read);
+        return out.toByteArray();
+    }
+
+    // Sizes and CRC of the original entry no longer apply once it is recompressed, so only carry over what describes the entry
+    static ZipEntry copy(ZipEntry entry) {
+        ZipEntry ret = new ZipEntry(entry.getName());
+        ret.setTime(entry.getTime());
+        if (entry.getComment() != null)
+            ret.setComment(entry.getComment());
+        return ret;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+import net.minecraftforge.artifactural.base.artifact.StreamableArtifact;
+import net.minecraftforge.artifactural.base.util.BoundedPipe;
+
+/**
+ * A transformer that works on the bytes of an artifact as they flow, instead of on a materialized artifact.
+ *
+ * The artifact returned from {@link #transform(Artifact)} is lazy, every time it is opened the transformation runs
+ * on a worker thread and feeds the returned stream through a {@link BoundedPipe}. So an {@link #andThen(ArtifactTransformer)}
+ * chain of streaming transformers runs every stage concurrently with bounded buffers in between, and nothing is written to disk
+ * until the final artifact is cached.
+ */
+public interface StreamingTransformer extends ArtifactTransformer {
+
+    static StreamingTransformer of(Operator operator) {
+        return new StreamingTransformer() {
+            @Override
+            public void transform(InputStream input, OutputStream output) throws IOException {
+                operator.transform(input, output);
+            }
+
+            @Override
+            public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+                return metadata;
+            }
+        };
+    }
+
+    static StreamingTransformer ofEntries(EntryTransformer transformer) {
+        return new StreamingJarTransformer(transformer);
+    }
+
+    void transform(InputStream input, OutputStream output) throws IOException;
+
+    @Override
+    default Artifact transform(Artifact artifact) {
+        return StreamableArtifact.ofStreamable(artifact.getIdentifier(), artifact.getType(), () -> {
+            // Open the input here rather than on the worker, so a missing input fails the open instead of the first read
+            InputStream input = artifact.openStream();
+            return BoundedPipe.pump(output -> {
+                try (InputStream in = input) {
+                    transform(in, output);
+                }
+            });
+        }).withMetadata(withInfo(artifact.getMetadata()));
+    }
+
+    @FunctionalInterface
+    interface Operator {
+        void transform(InputStream input, OutputStream output) throws IOException;
+    }
+
+}
@@ -0,0 +1,333 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.artifact.ArtifactMetadata;
+import net.minecraftforge.artifactural.api.artifact.ArtifactType;
+import net.minecraftforge.artifactural.api.artifact.MissingArtifactException;
+import net.minecraftforge.artifactural.api.cache.ArtifactCache;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+
+/**
+ * Opt-in instrumentation for transformers.
+ *
+ * Transformers wrapped with {@link #wrap(String, ArtifactTransformer)}, or applied through {@link #apply(Artifact, ArtifactTransformer)}, record
+ * the wall and CPU time of their {@code appliesTo} and {@code transform} calls, whether their output was already cached, and,
+ * once their output is read, how long that took and how many bytes they read and produced.
+ * CPU time is that of the thread making the call or reading the output, work a stage hands to other threads is not included.
+ * Wrapped stages are opaque to {@link PerEntryTransformer} fusion.
+ *
+ * Results can be written as a Chrome trace, loadable in {@code chrome://tracing} or Perfetto, or printed as a table aggregated per stage.
+ */
+public class TransformProfiler {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long origin = System.nanoTime();
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+
+    public ArtifactTransformer wrap(ArtifactTransformer transformer) {
+        return wrap(transformer.getClass().getName(), transformer);
+    }
+
+    public ArtifactTransformer wrap(String stage, ArtifactTransformer transformer) {
+        return new Profiled(stage, transformer);
+    }
+
+    /**
+     * Profiled equivalent of {@code artifact.apply(transformer)}.
+     */
+    public Artifact apply(Artifact artifact, ArtifactTransformer transformer) {
+        return artifact.apply(wrap(transformer));
+    }
+
+    public void clear() {
+        events.clear();
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Writes every recorded event in the Chrome trace event format.
+     */
+    public void writeChromeTrace(File file) throws IOException {
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        try (Writer out = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            out.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            for (Event event : events) {
+                if (!first)
+                    out.write(",\n");
+                first = false;
+                out.write(String.format(Locale.ENGLISH,
+                    "{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":\"%s\",\"ts\":%.3f,\"dur\":%.3f,\"args\":{\"artifact\":\"%s\",\"cpu_ms\":%.3f,\"in_bytes\":%d,\"out_bytes\":%d,\"cache\":\"%s\"}}",
+                    escape(event.stage), event.phase, escape(event.thread), (event.start - origin) / 1000.0, event.wall / 1000.0,
+                    escape(event.artifact), event.cpu / 1e6, event.in, event.out, event.cache));
+            }
+            out.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+        }
+    }
+
+    /**
+     * Prints a table of every stage with its total times, bytes and cache hits, slowest first.
+     */
+    public void printSummary(PrintStream out) {
+        Map<String, Summary> stages = new LinkedHashMap<>();
+        for (Event event : events) {
+            Summary summary = stages.computeIfAbsent(event.stage, Summary::new);
+            summary.add(event);
+        }
+        List<Summary> sorted = new ArrayList<>(stages.values());
+        sorted.sort((a, b) -> Long.compare(b.wall, a.wall));
+
+        out.println(String.format(Locale.ENGLISH, "%-50s %8s %8s %12s %12s %12s %12s %6s", "Stage", "Applied", "Skipped", "Wall ms", "CPU ms", "In KiB", "Out KiB", "Hits"));
+        for (Summary s : sorted) {
+            out.println(String.format(Locale.ENGLISH, "%-50s %8d %8d %12.1f %12.1f %12.1f %12.1f %6d",
+                s.stage.length() > 50 ? "..." + s.stage.substring(s.stage.length() - 47) : s.stage,
+                s.transforms, s.skipped, s.wall / 1e6, s.cpu / 1e6, s.in / 1024.0, s.out / 1024.0, s.hits));
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder ret = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\')
+                ret.append('\\').append(c);
+            else if (c < 0x20)
+                ret.append(String.format(Locale.ENGLISH, "\\u%04x", (int)c));
+            else
+                ret.append(c);
+        }
+        return ret.toString();
+    }
+
+    private void record(String stage, String phase, Artifact artifact, long start, long wall, long cpu, long in, long out, String cache) {
+        events.add(new Event(stage, phase, Thread.currentThread().getName(), String.valueOf(artifact.getIdentifier()), start, wall, cpu, in, out, cache));
+    }
+
+    private static class Event {
+        private final String stage, phase, thread, artifact, cache;
+        private final long start, wall, cpu, in, out;
+
+        private Event(String stage, String phase, String thread, String artifact, long start, long wall, long cpu, long in, long out, String cache) {
+            this.stage = stage;
+            this.phase = phase;
+            this.thread = thread;
+            this.artifact = artifact;
+            this.start = start;
+            this.wall = wall;
+            this.cpu = cpu;
+            this.in = in;
+            this.out = out;
+            this.cache = cache;
+        }
+    }
+
+    private static class Summary {
+        private final String stage;
+        private long transforms, skipped, wall, cpu, in, out, hits;
+
+        private Summary(String stage) {
+            this.stage = stage;
+        }
+
+        private void add(Event event) {
+            wall += event.wall;
+            cpu += event.cpu;
+            in += Math.max(0, event.in);
+            out += Math.max(0, event.out);
+            if ("skipped".equals(event.cache))
+                skipped++;
+            if ("transform".equals(event.phase)) {
+                transforms++;
+                if ("hit".equals(event.cache))
+                    hits++;
+            }
+        }
+    }
+
+    private class Profiled implements ArtifactTransformer {
+        private final String stage;
+        private final ArtifactTransformer delegate;
+
+        private Profiled(String stage, ArtifactTransformer delegate) {
+            this.stage = stage;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean appliesTo(Artifact artifact) {
+            long start = System.nanoTime();
+            long cpu = cpuTime();
+            boolean ret = delegate.appliesTo(artifact);
+            if (!ret)
+                record(stage, "appliesTo", artifact, start, System.nanoTime() - start, cpuTime() - cpu, -1, -1, "skipped");
+            return ret;
+        }
+
+        @Override
+        public Artifact transform(Artifact artifact) {
+            AtomicLong in = new AtomicLong();
+            long start = System.nanoTime();
+            long cpu = cpuTime();
+            Artifact ret = delegate.transform(counting(artifact, in, null));
+            long wall = System.nanoTime() - start;
+            cpu = cpuTime() - cpu;
+
+            String cache = "none";
+            if (ret instanceof Artifact.Cached) {
+                try {
+                    cache = ((Artifact.Cached)ret).getFileLocation().exists() ? "hit" : "miss";
+                } catch (IOException | MissingArtifactException e) {
+                    cache = "miss";
+                }
+            }
+            record(stage, "transform", artifact, start, wall, cpu, -1, -1, cache);
+            return counting(ret, new AtomicLong(), in);
+        }
+
+        @Override
+        public ArtifactMetadata withInfo(ArtifactMetadata metadata) {
+            return delegate.withInfo(metadata);
+        }
+
+        // Counts bytes read from the artifact into 'counter'. When 'input' is set this is a stage's output, reading it to the end records a stream event.
+        private Artifact counting(Artifact artifact, AtomicLong counter, AtomicLong input) {
+            if (artifact instanceof Artifact.Cached)
+                return new CountingCached((Artifact.Cached)artifact, counter, input);
+            return new Counting(artifact, counter, input);
+        }
+
+        private class Counting implements Artifact {
+            protected final Artifact artifact;
+            protected final AtomicLong counter, input;
+
+            private Counting(Artifact artifact, AtomicLong counter, AtomicLong input) {
+                this.artifact = artifact;
+                this.counter = counter;
+                this.input = input;
+            }
+
+            @Override public ArtifactIdentifier getIdentifier() { return artifact.getIdentifier(); }
+            @Override public ArtifactMetadata getMetadata() { return artifact.getMetadata(); }
+            @Override public ArtifactType getType() { return artifact.getType(); }
+            @Override public Artifact withMetadata(ArtifactMetadata metadata) { return artifact.withMetadata(metadata); }
+            @Override public boolean isPresent() { return artifact.isPresent(); }
+
+            @Override
+            public Artifact apply(ArtifactTransformer transformer) {
+                if (!transformer.appliesTo(this)) return this;
+                return transformer.transform(this);
+            }
+
+            @Override
+            public Artifact.Cached cache(ArtifactCache cache) {
+                return cache.store(this);
+            }
+
+            @Override
+            public InputStream openStream() throws IOException, MissingArtifactException {
+                InputStream stream = artifact.openStream();
+                Thread thread = Thread.currentThread();
+                long start = System.nanoTime();
+                long cpu = cpuTime();
+                long before = counter.get();
+                return new FilterInputStream(stream) {
+                    private boolean closed = false;
+
+                    @Override
+                    public int read() throws IOException {
+                        int ret = super.read();
+                        if (ret != -1)
+                            counter.incrementAndGet();
+                        return ret;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int ret = super.read(b, off, len);
+                        if (ret > 0)
+                            counter.addAndGet(ret);
+                        return ret;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        if (closed || input == null)
+                            return;
+                        closed = true;
+                        long used = Thread.currentThread() == thread ? cpuTime() - cpu : 0;
+                        record(stage, "stream", artifact, start, System.nanoTime() - start, used, input.get(), counter.get() - before, "none");
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return artifact.toString();
+            }
+        }
+
+        private class CountingCached extends Counting implements Artifact.Cached {
+            private CountingCached(Artifact.Cached artifact, AtomicLong counter, AtomicLong input) {
+                super(artifact, counter, input);
+            }
+
+            @Override
+            public File asFile() throws IOException, MissingArtifactException {
+                File file = ((Artifact.Cached)artifact).asFile();
+                // Whoever asks for the file reads it directly, so count all of it
+                counter.addAndGet(file.length());
+                return file;
+            }
+
+            @Override
+            public File getFileLocation() throws IOException, MissingArtifactException {
+                return ((Artifact.Cached)artifact).getFileLocation();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.transform;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import net.minecraftforge.artifactural.api.artifact.Artifact;
+import net.minecraftforge.artifactural.api.artifact.ArtifactIdentifier;
+import net.minecraftforge.artifactural.api.artifact.ArtifactType;
+import net.minecraftforge.artifactural.api.transform.ArtifactTransformer;
+import net.minecraftforge.artifactural.base.util.StringMatcher;
+
+/**
+ * A set of transformers, each registered with a declared {@link Condition} describing which artifacts it applies to.
+ *
+ * The literal parts of every condition are compiled into a hash index, so finding the transformers for an artifact is a handful of lookups
+ * instead of evaluating every transformer's {@link ArtifactTransformer#appliesTo(Artifact)} in turn. Group and name patterns that are really
+ * a literal or a prefix are indexed too. Only the transformers that pass the index have their patterns checked, and they are still asked
+ * {@code appliesTo} when applied.
+ */
+public class TransformerRegistry {
+    private static final int TYPE = 1, EXTENSION = 2, GROUP = 4, NAME = 8, GROUP_PREFIX = 16, NAME_PREFIX = 32;
+
+    private final List<Registration> registrations = new ArrayList<>();
+    private volatile Index index = null;
+
+    public synchronized TransformerRegistry register(Condition condition, ArtifactTransformer transformer) {
+        registrations.add(new Registration(condition.copy(), transformer));
+        index = null;
+        return this;
+    }
+
+    /**
+     * Returns the transformers whose conditions match the artifact, in registration order.
+     */
+    public List<ArtifactTransformer> getTransformers(Artifact artifact) {
+        Index idx = getIndex();
+        BitSet matches = idx.lookup(artifact);
+        if (matches.isEmpty())
+            return Collections.emptyList();
+
+        List<ArtifactTransformer> ret = new ArrayList<>(matches.cardinality());
+        ArtifactIdentifier identifier = artifact.getIdentifier();
+        for (int x = matches.nextSetBit(0); x >= 0; x = matches.nextSetBit(x + 1)) {
+            Registration reg = idx.registrations[x];
+            if (reg.condition.matchesPatterns(identifier))
+                ret.add(reg.transformer);
+        }
+        return ret;
+    }
+
+    /**
+     * Applies every matching transformer to the artifact, in registration order.
+     */
+    public Artifact apply(Artifact artifact) {
+        for (ArtifactTransformer transformer : getTransformers(artifact))
+            artifact = artifact.apply(transformer);
+        return artifact;
+    }
+
+    private Index getIndex() {
+        Index ret = index;
+        if (ret == null) {
+            synchronized (this) {
+                ret = index;
+                if (ret == null)
+                    index = ret = new Index(registrations);
+            }
+        }
+        return ret;
+    }
+
+    private static class Registration {
+        private final Condition condition;
+        private final ArtifactTransformer transformer;
+
+        private Registration(Condition condition, ArtifactTransformer transformer) {
+            this.condition = condition;
+            this.transformer = transformer;
+        }
+    }
+
+    private static class Index {
+        private final Registration[] registrations;
+        private final Map<Key, BitSet> buckets = new HashMap<>();
+        private final Probe[] probes;
+
+        private Index(List<Registration> registrations) {
+            this.registrations = registrations.toArray(new Registration[0]);
+            Set<Probe> probes = new LinkedHashSet<>();
+            for (int x = 0; x < this.registrations.length; x++) {
+                Condition condition = this.registrations[x].condition;
+                String group = condition.indexedGroup(), name = condition.indexedName();
+                Probe probe = new Probe(condition.shape(), group == null ? 0 : group.length(), name == null ? 0 : name.length());
+                probes.add(probe);
+                Key key = new Key(probe.shape, condition.type, condition.extension, group, name);
+                buckets.computeIfAbsent(key, k -> new BitSet()).set(x);
+            }
+            this.probes = probes.toArray(new Probe[0]);
+        }
+
+        // Only the combinations of constrained fields, and prefix lengths, that some condition actually uses are probed
+        private BitSet lookup(Artifact artifact) {
+            ArtifactIdentifier identifier = artifact.getIdentifier();
+            ArtifactType type = artifact.getType();
+            BitSet ret = new BitSet(registrations.length);
+            for (Probe probe : probes) {
+                int shape = probe.shape;
+                String group = identifier.getGroup(), name = identifier.getName();
+                if ((shape & GROUP_PREFIX) != 0)
+                    group = group == null || group.length() < probe.groupLength ? null : group.substring(0, probe.groupLength);
+                if ((shape & NAME_PREFIX) != 0)
+                    name = name == null || name.length() < probe.nameLength ? null : name.substring(0, probe.nameLength);
+                Key key = new Key(shape,
+                    (shape & TYPE) != 0 ? type : null,
+                    (shape & EXTENSION) != 0 ? identifier.getExtension() : null,
+                    (shape & (GROUP | GROUP_PREFIX)) != 0 ? group : null,
+                    (shape & (NAME | NAME_PREFIX)) != 0 ? name : null);
+                BitSet bucket = buckets.get(key);
+                if (bucket != null)
+                    ret.or(bucket);
+            }
+            return ret;
+        }
+    }
+
+    private static class Probe {
+        private final int shape, groupLength, nameLength;
+
+        private Probe(int shape, int groupLength, int nameLength) {
+            this.shape = shape;
+            this.groupLength = (shape & GROUP_PREFIX) != 0 ? groupLength : 0;
+            this.nameLength = (shape & NAME_PREFIX) != 0 ? nameLength : 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (shape * 31 + groupLength) * 31 + nameLength;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Probe)) return false;
+            Probe o = (Probe)obj;
+            return shape == o.shape && groupLength == o.groupLength && nameLength == o.nameLength;
+        }
+    }
+
+    private static class Key {
+        private final int shape;
+        private final ArtifactType type;
+        private final String extension, group, name;
+        private final int hash;
+
+        private Key(int shape, ArtifactType type, String extension, String group, String name) {
+            this.shape = shape;
+            this.type = type;
+            this.extension = extension;
+            this.group = group;
+            this.name = name;
+            this.hash = Objects.hash(shape, type, extension, group, name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key o = (Key)obj;
+            return shape == o.shape && type == o.type && Objects.equals(extension, o.extension) &&
+                Objects.equals(group, o.group) && Objects.equals(name, o.name);
+        }
+    }
+
+    /**
+     * Declares which artifacts a transformer applies to. Every constraint that is set must match, unset constraints match anything.
+     */
+    public static class Condition {
+        private ArtifactType type;
+        private String extension, group, name;
+        private StringMatcher groupMatcher, nameMatcher;
+
+        public static Condition any() {
+            return new Condition();
+        }
+
+        public Condition type(ArtifactType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Condition extension(String extension) {
+            this.extension = extension;
+            return this;
+        }
+
+        public Condition group(String group) {
+            this.group = group;
+            return this;
+        }
+
+        public Condition groupMatches(String regex) {
+            this.groupMatcher = StringMatcher.regex(regex);
+            return this;
+        }
+
+        public Condition name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Condition nameMatches(String regex) {
+            this.nameMatcher = StringMatcher.regex(regex);
+            return this;
+        }
+
+        private int shape() {
+            return (type != null ? TYPE : 0) | (extension != null ? EXTENSION : 0) |
+                   field(group, groupMatcher, GROUP, GROUP_PREFIX) | field(name, nameMatcher, NAME, NAME_PREFIX);
+        }
+
+        private static int field(String literal, StringMatcher matcher, int exact, int prefix) {
+            if (literal != null || (matcher != null && matcher.getKind() == StringMatcher.Kind.LITERAL))
+                return exact;
+            return matcher != null && matcher.getKind() == StringMatcher.Kind.PREFIX ? prefix : 0;
+        }
+
+        // The exact group, or the prefix of it, this condition is filed under in the index
+        private String indexedGroup() {
+            return group != null ? group : (shape() & (GROUP | GROUP_PREFIX)) != 0 ? groupMatcher.getValue() : null;
+        }
+
+        private String indexedName() {
+            return name != null ? name : (shape() & (NAME | NAME_PREFIX)) != 0 ? nameMatcher.getValue() : null;
+        }
+
+        // A missing group or name only matches patterns that match anything, like everywhere else StringMatcher is used
+        private boolean matchesPatterns(ArtifactIdentifier identifier) {
+            return (groupMatcher == null || groupMatcher.test(identifier.getGroup())) &&
+                   (nameMatcher == null || nameMatcher.test(identifier.getName()));
+        }
+
+        private Condition copy() {
+            Condition ret = new Condition();
+            ret.type = type;
+            ret.extension = extension;
+            ret.group = group;
+            ret.name = name;
+            ret.groupMatcher = groupMatcher;
+            ret.nameMatcher = nameMatcher;
+            return ret;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread safe map holding at most {@code maxSize} entries, evicting the least recently used first,
+ * where each entry also expires a fixed time after it was put.
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttl;
+    private final LinkedHashMap<K, Timed<V>> map;
+
+    /**
+     * @param ttl How long entries live, zero or less to never expire them
+     */
+    public BoundedCache(int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        this.ttl = ttl <= 0 ? -1 : unit.toNanos(ttl);
+        this.map = new LinkedHashMap<K, Timed<V>>(16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+                return size() > BoundedCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the value, or null if absent or expired.
+     */
+    public synchronized V get(K key) {
+        Timed<V> entry = map.get(key);
+        if (entry == null)
+            return null;
+        if (entry.isExpired(System.nanoTime())) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, new Timed<>(value, ttl == -1 ? -1 : System.nanoTime() + ttl));
+    }
+
+    public synchronized V remove(K key) {
+        Timed<V> entry = map.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the number of entries, dropping expired ones first.
+     */
+    public synchronized int size() {
+        long now = System.nanoTime();
+        for (Iterator<Timed<V>> itr = map.values().iterator(); itr.hasNext();) {
+            if (itr.next().isExpired(now))
+                itr.remove();
+        }
+        return map.size();
+    }
+
+    private static class Timed<V> {
+        private final V value;
+        private final long expires;
+
+        private Timed(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        private boolean isExpired(long now) {
+            return expires != -1 && now - expires >= 0;
+        }
+    }
+}
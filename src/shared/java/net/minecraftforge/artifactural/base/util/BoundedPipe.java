@@ -0,0 +1,245 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pipe between a producer running on a worker thread and a consumer reading an {@link InputStream}.
+ * Data moves in fixed size chunks through a bounded queue, so a fast producer blocks instead of
+ * buffering its whole output in memory, and chaining several pipes runs every stage concurrently.
+ */
+public class BoundedPipe {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final byte[] EOF = new byte[0];
+    private static final long ABANDON_CHECK_INTERVAL = 1000;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger(0);
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Artifactural Pipe #" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FunctionalInterface
+    public interface Producer {
+        void write(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Runs the producer on a worker thread and returns a stream of everything it writes.
+     * Any exception thrown by the producer is rethrown from the returned stream once the data written before it has been read,
+     * and again from every read after that.
+     * Closing the returned stream early, or dropping it without closing it, makes further writes from the producer fail, which stops it.
+     */
+    public static InputStream pump(Producer producer) {
+        return pump(producer, DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY);
+    }
+
+    public static InputStream pump(Producer producer, int chunkSize, int capacity) {
+        BoundedPipe pipe = new BoundedPipe(chunkSize, capacity);
+        Input input = pipe.new Input();
+        pipe.reader = new WeakReference<>(input);
+        WORKERS.execute(() -> {
+            pipe.setWorker(Thread.currentThread());
+            try (OutputStream out = pipe.output) {
+                producer.write(out);
+            } catch (Throwable t) {
+                pipe.fail(t);
+            } finally {
+                pipe.setWorker(null);
+                Thread.interrupted(); // A late close() must not interrupt whatever the pool runs next
+            }
+        });
+        return input;
+    }
+
+    private final BlockingQueue<byte[]> queue;
+    private final int chunkSize;
+    private final Output output;
+    // Only the consumer holds the stream strongly, so the producer can tell when it was dropped without being closed
+    private WeakReference<Input> reader;
+    private Thread worker;
+    private volatile Throwable failure;
+    private volatile boolean readerClosed;
+
+    private BoundedPipe(int chunkSize, int capacity) {
+        this.chunkSize = chunkSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.output = new Output();
+    }
+
+    private synchronized void setWorker(Thread worker) {
+        this.worker = worker;
+    }
+
+    private synchronized void interruptWorker() {
+        if (worker != null)
+            worker.interrupt();
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            while (!readerClosed) {
+                if (queue.offer(chunk, ABANDON_CHECK_INTERVAL, TimeUnit.MILLISECONDS))
+                    return;
+                if (reader.get() == null)
+                    readerClosed = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        throw new IOException("Pipe closed");
+    }
+
+    private void fail(Throwable t) {
+        failure = t;
+        if (!output.closed) {
+            output.closed = true;
+            try {
+                put(EOF);
+            } catch (IOException e) {
+                // Reader is gone or we were interrupted, either way nobody is waiting for the failure
+            }
+        }
+    }
+
+    private class Output extends OutputStream {
+        private byte[] buf = new byte[chunkSize];
+        private int pos = 0;
+        private volatile boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+            if (pos == buf.length)
+                emit();
+            buf[pos++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+            while (len > 0) {
+                if (pos == buf.length)
+                    emit();
+                int count = Math.min(len, buf.length - pos);
+                System.arraycopy(b, off, buf, pos, count);
+                pos += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void emit() throws IOException {
+            byte[] chunk = pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+            put(chunk);
+            buf = new byte[chunkSize];
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            if (pos > 0)
+                emit();
+            closed = true;
+            put(EOF);
+        }
+    }
+
+    private class Input extends InputStream {
+        private byte[] chunk = null;
+        private int pos = 0;
+        private boolean done = false;
+
+        private boolean next() throws IOException {
+            if (done) {
+                if (failure != null)
+                    throw failure instanceof IOException ? (IOException)failure : new IOException(failure);
+                return false;
+            }
+            if (chunk != null && pos < chunk.length)
+                return true;
+            if (readerClosed)
+                throw new IOException("Stream closed");
+            try {
+                chunk = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            pos = 0;
+            if (chunk == EOF) {
+                done = true;
+                return next();
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!next())
+                return -1;
+            return chunk[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!next())
+                return -1;
+            int count = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return chunk == null || done ? 0 : chunk.length - pos;
+        }
+
+        @Override
+        public void close() {
+            readerClosed = true;
+            // Unblocks a producer waiting on a full queue, its next write will then fail.
+            queue.clear();
+            interruptWorker();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A character trie of strings tagged with integer ids, answering which of them are prefixes of a given string in a single walk over it.
+ * A reversed trie does the same for suffixes.
+ */
+public class PrefixTrie {
+    private final Node root = new Node();
+    private final boolean reversed;
+    private int size = 0;
+
+    public PrefixTrie() {
+        this(false);
+    }
+
+    public PrefixTrie(boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    public void add(String key, int id) {
+        Node node = root;
+        int len = key.length();
+        for (int x = 0; x < len; x++)
+            node = node.children.computeIfAbsent(key.charAt(reversed ? len - 1 - x : x), k -> new Node());
+        if (node.ids == null)
+            node.ids = new BitSet();
+        node.ids.set(id);
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sets the ids of every key that is a prefix of the value, or a suffix if this trie is reversed, in {@code out}.
+     */
+    public void collect(String value, BitSet out) {
+        Node node = root;
+        int len = value.length();
+        for (int x = 0; ; x++) {
+            if (node.ids != null)
+                out.or(node.ids);
+            if (x == len)
+                return;
+            node = node.children.get(value.charAt(reversed ? len - 1 - x : x));
+            if (node == null)
+                return;
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private BitSet ids;
+    }
+}
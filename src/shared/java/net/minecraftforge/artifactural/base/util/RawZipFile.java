@@ -0,0 +1,326 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Read only view of a zip file that exposes the compressed bytes of each entry as they are stored,
+ * so they can be copied into a {@link RawZipOutput} without being inflated and deflated again.
+ * Reads are positional, so entries may be read from several threads at once.
+ *
+ * Zip64 archives are not supported, opening one throws {@link UnsupportedArchiveException} so callers can fall back to {@link java.util.zip.ZipInputStream}.
+ * Entry names are decoded with {@link ZipNames}.
+ */
+public class RawZipFile implements Closeable {
+    static final int LOCAL_SIG = 0x04034b50;
+    static final int CENTRAL_SIG = 0x02014b50;
+    static final int END_SIG = 0x06054b50;
+    static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    static final int LOCAL_HEADER = 30;
+    static final int CENTRAL_HEADER = 46;
+    static final int END_HEADER = 22;
+    static final int ZIP64_LOCATOR = 20;
+    static final int UTF8_FLAG = 0x800;
+
+    public static RawZipFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new RawZipFile(file.toString(), channel, null, channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static RawZipFile of(byte[] data) throws IOException {
+        return new RawZipFile("memory", null, data, data.length);
+    }
+
+    private final String name;
+    private final FileChannel channel;
+    private final byte[] data;
+    private final long length;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> byName = new HashMap<>();
+
+    private RawZipFile(String name, FileChannel channel, byte[] data, long length) throws IOException {
+        this.name = name;
+        this.channel = channel;
+        this.data = data;
+        this.length = length;
+        readCentralDirectory();
+    }
+
+    private void readCentralDirectory() throws IOException {
+        int tail = (int)Math.min(length, END_HEADER + 0xFFFF);
+        ByteBuffer end = read(length - tail, tail);
+        int pos = -1;
+        for (int x = tail - END_HEADER; x >= 0; x--) {
+            if (end.getInt(x) == END_SIG) {
+                pos = x;
+                break;
+            }
+        }
+        if (pos == -1)
+            throw new IOException("Not a zip file, could not find end of central directory: " + name);
+
+        int total = end.getShort(pos + 10) & 0xFFFF;
+        long cdSize = end.getInt(pos + 12) & 0xFFFFFFFFL;
+        long cdOffset = end.getInt(pos + 16) & 0xFFFFFFFFL;
+        if ((pos >= ZIP64_LOCATOR && end.getInt(pos - ZIP64_LOCATOR) == ZIP64_LOCATOR_SIG) || total == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL)
+            throw new UnsupportedArchiveException("Zip64 archives are not supported: " + name);
+        if (cdOffset + cdSize > length)
+            throw new IOException("Invalid central directory offset: " + name);
+
+        ByteBuffer cd = read(cdOffset, (int)cdSize);
+        int off = 0;
+        for (int x = 0; x < total; x++) {
+            if (off + CENTRAL_HEADER > cdSize || cd.getInt(off) != CENTRAL_SIG)
+                throw new IOException("Invalid central directory entry " + x + ": " + name);
+            int nameLen = cd.getShort(off + 28) & 0xFFFF;
+            int extraLen = cd.getShort(off + 30) & 0xFFFF;
+            int commentLen = cd.getShort(off + 32) & 0xFFFF;
+            byte[] header = new byte[CENTRAL_HEADER + nameLen + extraLen + commentLen];
+            cd.position(off);
+            cd.get(header);
+            Entry entry = new Entry(header);
+            if (entry.compressedSize == 0xFFFFFFFFL || entry.size == 0xFFFFFFFFL || entry.localOffset == 0xFFFFFFFFL)
+                throw new UnsupportedArchiveException("Zip64 entries are not supported: " + entry.name + " in " + name);
+            entries.add(entry);
+            byName.putIfAbsent(entry.name, entry);
+            off += header.length;
+        }
+    }
+
+    private ByteBuffer read(long position, int size) throws IOException {
+        ByteBuffer buf;
+        if (data != null) {
+            buf = ByteBuffer.wrap(data, (int)position, size).slice();
+        } else {
+            buf = ByteBuffer.allocate(size);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) == -1)
+                    throw new EOFException(name);
+            }
+            buf.flip();
+        }
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns every entry in central directory order, including entries that share a name.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the first entry with the name, or null if there is none.
+     */
+    public Entry getEntry(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Returns the extra field of the entry's local header, which may differ from the one in the central directory.
+     */
+    byte[] getLocalExtra(Entry entry) throws IOException {
+        locate(entry);
+        return entry.localExtra;
+    }
+
+    private long locate(Entry entry) throws IOException {
+        if (entry.dataOffset == -1) {
+            ByteBuffer header = read(entry.localOffset, LOCAL_HEADER);
+            if (header.getInt(0) != LOCAL_SIG)
+                throw new IOException("Invalid local header for " + entry.name + " in " + name);
+            int nameLen = header.getShort(26) & 0xFFFF;
+            int extraLen = header.getShort(28) & 0xFFFF;
+            byte[] extra = new byte[extraLen];
+            read(entry.localOffset + LOCAL_HEADER + nameLen, extraLen).get(extra);
+            entry.localExtra = extra;
+            entry.dataOffset = entry.localOffset + LOCAL_HEADER + nameLen + extraLen;
+        }
+        return entry.dataOffset;
+    }
+
+    /**
+     * Returns the entry's data exactly as it is stored in the archive.
+     */
+    public byte[] readRaw(Entry entry) throws IOException {
+        byte[] ret = new byte[(int)entry.compressedSize];
+        read(locate(entry), ret.length).get(ret);
+        return ret;
+    }
+
+    /**
+     * Copies the entry's data exactly as it is stored in the archive.
+     */
+    public void copyRaw(Entry entry, OutputStream out) throws IOException {
+        long position = locate(entry);
+        long remaining = entry.compressedSize;
+        while (remaining > 0) {
+            int count = (int)Math.min(remaining, 64 * 1024);
+            ByteBuffer buf = read(position, count);
+            if (buf.hasArray()) {
+                out.write(buf.array(), buf.arrayOffset() + buf.position(), count);
+            } else {
+                byte[] tmp = new byte[count];
+                buf.get(tmp);
+                out.write(tmp);
+            }
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Returns the uncompressed contents of the entry.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        if (entry.method == ZipEntry.STORED)
+            return readRaw(entry);
+        if (entry.method != ZipEntry.DEFLATED)
+            throw new IOException("Unsupported compression method " + entry.method + " for " + entry.name + " in " + name);
+
+        // Raw inflaters may need one extra dummy byte past the end of the data
+        byte[] raw = new byte[(int)entry.compressedSize + 1];
+        read(locate(entry), raw.length - 1).get(raw, 0, raw.length - 1);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(raw);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int)Math.min(entry.size, Integer.MAX_VALUE - 8));
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buf);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new EOFException("Unexpected end of data for " + entry.name + " in " + name);
+                out.write(buf, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data for " + entry.name + " in " + name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null)
+            channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "RawZipFile(" + name + ")";
+    }
+
+    /**
+     * Thrown when an archive uses a feature this class does not read, but {@link java.util.zip.ZipInputStream} does.
+     */
+    public static class UnsupportedArchiveException extends ZipException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedArchiveException(String message) {
+            super(message);
+        }
+    }
+
+    public static class Entry {
+        final byte[] header; // Central directory record, including name, extra and comment
+        final String name;
+        final int flags, method, crc;
+        final long compressedSize, size, localOffset;
+        private volatile byte[] localExtra;
+        private volatile long dataOffset = -1;
+
+        private Entry(byte[] header) throws ZipException {
+            ByteBuffer buf = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            this.header = header;
+            this.flags = buf.getShort(8) & 0xFFFF;
+            this.method = buf.getShort(10) & 0xFFFF;
+            this.crc = buf.getInt(16);
+            this.compressedSize = buf.getInt(20) & 0xFFFFFFFFL;
+            this.size = buf.getInt(24) & 0xFFFFFFFFL;
+            this.localOffset = buf.getInt(42) & 0xFFFFFFFFL;
+            ByteBuffer name = ByteBuffer.wrap(header, CENTRAL_HEADER, buf.getShort(28) & 0xFFFF);
+            if ((flags & UTF8_FLAG) == 0) {
+                this.name = ZipNames.decode(name);
+            } else {
+                try {
+                    this.name = StandardCharsets.UTF_8.newDecoder().decode(name).toString();
+                } catch (CharacterCodingException e) {
+                    throw new ZipException("Invalid UTF-8 entry name"); // Same as ZipInputStream, which refuses these too
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCrc() {
+            return crc & 0xFFFFFFFFL;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
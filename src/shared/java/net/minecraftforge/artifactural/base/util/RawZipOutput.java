@@ -0,0 +1,201 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip file whose entries are either copied verbatim from a {@link RawZipFile}, keeping their compressed bytes and CRC,
+ * or supplied as new data that is compressed with the method of the entry it replaces.
+ */
+public class RawZipOutput implements Closeable {
+
+    private final CountingStream out;
+    private final List<byte[]> central = new ArrayList<>();
+    private boolean finished = false;
+
+    public RawZipOutput(OutputStream out) {
+        this.out = new CountingStream(out);
+    }
+
+    /**
+     * Copies an entry from another archive without decompressing it.
+     */
+    public void copy(RawZipFile from, RawZipFile.Entry entry) throws IOException {
+        writeLocal(entry, entry.method, entry.crc, entry.compressedSize, entry.size, from.getLocalExtra(entry));
+        from.copyRaw(entry, out);
+    }
+
+    /**
+     * Writes new contents for an entry, keeping its name, time and attributes.
+     */
+    public void write(RawZipFile.Entry entry, byte[] data) throws IOException {
+        write(entry, compress(entry.method, data));
+    }
+
+    /**
+     * Writes contents that were already compressed with {@link #compress(int, byte[])}, possibly on another thread.
+     */
+    public void write(RawZipFile.Entry entry, Compressed data) throws IOException {
+        writeLocal(entry, data.method, data.crc, data.data.length, data.size, new byte[0]);
+        out.write(data.data);
+    }
+
+    private void writeLocal(RawZipFile.Entry entry, int method, int crc, long compressedSize, long size, byte[] extra) throws IOException {
+        if (finished)
+            throw new IOException("Zip already finished");
+        if (out.count > 0xFFFFFFFEL || compressedSize > 0xFFFFFFFEL || size > 0xFFFFFFFEL)
+            throw new IOException("Zip64 output is not supported: " + entry.name);
+        if (central.size() == 0xFFFF)
+            throw new IOException("Zip64 output is not supported, too many entries");
+
+        // Sizes and CRC are always known up front, so never use a data descriptor
+        int flags = entry.flags & ~0x8;
+        ByteBuffer src = ByteBuffer.wrap(entry.header).order(ByteOrder.LITTLE_ENDIAN);
+        int nameLen = src.getShort(28) & 0xFFFF;
+        ByteBuffer local = ByteBuffer.allocate(RawZipFile.LOCAL_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        local.putInt(RawZipFile.LOCAL_SIG);
+        local.putShort(src.getShort(6)); // Version needed
+        local.putShort((short)flags);
+        local.putShort((short)method);
+        local.putInt(src.getInt(12)); // Time and date
+        local.putInt(crc);
+        local.putInt((int)compressedSize);
+        local.putInt((int)size);
+        local.putShort((short)nameLen);
+        local.putShort((short)extra.length);
+
+        byte[] header = entry.header.clone();
+        ByteBuffer record = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        record.putShort(8, (short)flags);
+        record.putShort(10, (short)method);
+        record.putInt(16, crc);
+        record.putInt(20, (int)compressedSize);
+        record.putInt(24, (int)size);
+        record.putInt(42, (int)out.count);
+        central.add(header);
+
+        out.write(local.array());
+        out.write(entry.header, RawZipFile.CENTRAL_HEADER, nameLen);
+        out.write(extra);
+    }
+
+    /**
+     * Writes the central directory. No entries can be added afterwards.
+     */
+    public void finish() throws IOException {
+        if (finished)
+            return;
+        finished = true;
+        long start = out.count;
+        for (byte[] header : central)
+            out.write(header);
+        long size = out.count - start;
+        if (start > 0xFFFFFFFEL || size > 0xFFFFFFFEL)
+            throw new IOException("Zip64 output is not supported, central directory too large");
+
+        ByteBuffer end = ByteBuffer.allocate(RawZipFile.END_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(RawZipFile.END_SIG);
+        end.putShort((short)0); // This disk
+        end.putShort((short)0); // Central directory disk
+        end.putShort((short)central.size());
+        end.putShort((short)central.size());
+        end.putInt((int)size);
+        end.putInt((int)start);
+        end.putShort((short)0); // Comment length
+        out.write(end.array());
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    public static Compressed compress(int method, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if (method == ZipEntry.STORED)
+            return new Compressed(ZipEntry.STORED, (int)crc.getValue(), data.length, data);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream ret = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buf);
+                ret.write(buf, 0, count);
+            }
+            return new Compressed(ZipEntry.DEFLATED, (int)crc.getValue(), data.length, ret.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static class Compressed {
+        private final int method, crc;
+        private final long size;
+        private final byte[] data;
+
+        private Compressed(int method, int crc, long size, byte[] data) {
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+        }
+    }
+
+    private static class CountingStream extends FilterOutputStream {
+        private long count = 0;
+
+        private CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A string predicate compiled once. Patterns that are really a literal, a prefix or a suffix are recognized
+ * and tested without a regex, and those kinds can be merged with others into a {@link StringMatcherSet}.
+ */
+public final class StringMatcher implements Predicate<String> {
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+    private static final StringMatcher ANY = new StringMatcher(Kind.ANY, "", null);
+
+    public enum Kind {
+        ANY, LITERAL, PREFIX, SUFFIX, PATTERN
+    }
+
+    public static StringMatcher any() {
+        return ANY;
+    }
+
+    public static StringMatcher literal(String value) {
+        return new StringMatcher(Kind.LITERAL, value, null);
+    }
+
+    public static StringMatcher prefix(String prefix) {
+        return prefix.isEmpty() ? ANY : new StringMatcher(Kind.PREFIX, prefix, null);
+    }
+
+    public static StringMatcher suffix(String suffix) {
+        return suffix.isEmpty() ? ANY : new StringMatcher(Kind.SUFFIX, suffix, null);
+    }
+
+    public static StringMatcher pattern(Pattern pattern) {
+        return new StringMatcher(Kind.PATTERN, pattern.pattern(), pattern);
+    }
+
+    /**
+     * Matches the whole string against a regex, like {@link String#matches(String)}.
+     * Regexes of the form {@code literal}, {@code literal.*} and {@code .*literal}, where the literal may contain escaped symbols, avoid the regex engine.
+     */
+    public static StringMatcher regex(String regex) {
+        if (regex.equals(".*"))
+            return ANY;
+        String literal = unescape(regex);
+        if (literal != null)
+            return literal(literal);
+        if (regex.endsWith(".*") && !regex.endsWith("\\.*")) {
+            literal = unescape(regex.substring(0, regex.length() - 2));
+            if (literal != null)
+                return prefix(literal);
+        }
+        if (regex.startsWith(".*")) {
+            literal = unescape(regex.substring(2));
+            if (literal != null)
+                return suffix(literal);
+        }
+        return pattern(Pattern.compile(regex));
+    }
+
+    /**
+     * Matches the whole string against a glob, where {@code *} matches any run of characters and {@code ?} any single character.
+     */
+    public static StringMatcher glob(String glob) {
+        int star = glob.indexOf('*');
+        if (glob.indexOf('?') == -1) {
+            if (star == -1)
+                return literal(glob);
+            if (star == glob.length() - 1)
+                return prefix(glob.substring(0, star));
+            if (star == 0 && glob.indexOf('*', 1) == -1)
+                return suffix(glob.substring(1));
+        }
+
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int x = 0; x < glob.length(); x++) {
+            char c = glob.charAt(x);
+            if (c == '*' || c == '?') {
+                if (start < x)
+                    regex.append(Pattern.quote(glob.substring(start, x)));
+                regex.append(c == '*' ? ".*" : ".");
+                start = x + 1;
+            }
+        }
+        if (start < glob.length())
+            regex.append(Pattern.quote(glob.substring(start)));
+        return pattern(Pattern.compile(regex.toString(), Pattern.DOTALL));
+    }
+
+    // Returns the literal string a regex matches, or null if it contains anything other than plain and escaped symbol characters
+    private static String unescape(String regex) {
+        StringBuilder ret = new StringBuilder(regex.length());
+        for (int x = 0; x < regex.length(); x++) {
+            char c = regex.charAt(x);
+            if (c == '\\') {
+                if (x + 1 == regex.length())
+                    return null;
+                char next = regex.charAt(++x);
+                if (Character.isLetterOrDigit(next))
+                    return null; // Character classes, back references and quoting
+                ret.append(next);
+            } else if (REGEX_META.indexOf(c) != -1) {
+                return null;
+            } else {
+                ret.append(c);
+            }
+        }
+        return ret.toString();
+    }
+
+    private final Kind kind;
+    private final String value;
+    private final Pattern pattern;
+
+    private StringMatcher(Kind kind, String value, Pattern pattern) {
+        this.kind = kind;
+        this.value = value;
+        this.pattern = pattern;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The literal, prefix, suffix or regex this matches, depending on the kind.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean test(String input) {
+        if (input == null)
+            return kind == Kind.ANY;
+        switch (kind) {
+            case ANY:     return true;
+            case LITERAL: return value.equals(input);
+            case PREFIX:  return input.startsWith(value);
+            case SUFFIX:  return input.endsWith(value);
+            default:      return pattern.matcher(input).matches();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind + "(" + value + ")";
+    }
+}
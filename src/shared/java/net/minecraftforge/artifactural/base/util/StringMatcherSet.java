@@ -0,0 +1,81 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Many {@link StringMatcher}s merged so they can be evaluated together.
+ * Literals are a single hash lookup, prefixes and suffixes one walk over a {@link PrefixTrie} each, only real patterns are tested one by one.
+ */
+public class StringMatcherSet {
+    private final int size;
+    private final BitSet any = new BitSet();
+    private final Map<String, BitSet> literals = new HashMap<>();
+    private final PrefixTrie prefixes = new PrefixTrie();
+    private final PrefixTrie suffixes = new PrefixTrie(true);
+    private final List<StringMatcher> patterns = new ArrayList<>();
+    private final List<Integer> patternIds = new ArrayList<>();
+
+    public StringMatcherSet(List<StringMatcher> matchers) {
+        this.size = matchers.size();
+        for (int x = 0; x < matchers.size(); x++) {
+            StringMatcher matcher = matchers.get(x);
+            switch (matcher.getKind()) {
+                case ANY:     any.set(x); break;
+                case LITERAL: literals.computeIfAbsent(matcher.getValue(), k -> new BitSet()).set(x); break;
+                case PREFIX:  prefixes.add(matcher.getValue(), x); break;
+                case SUFFIX:  suffixes.add(matcher.getValue(), x); break;
+                default:
+                    patterns.add(matcher);
+                    patternIds.add(x);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the indices of every matcher that matches the value.
+     */
+    public BitSet match(String value) {
+        BitSet ret = (BitSet)any.clone();
+        if (value == null)
+            return ret;
+        BitSet literal = literals.get(value);
+        if (literal != null)
+            ret.or(literal);
+        if (!prefixes.isEmpty())
+            prefixes.collect(value, ret);
+        if (!suffixes.isEmpty())
+            suffixes.collect(value, ret);
+        for (int x = 0; x < patterns.size(); x++) {
+            if (patterns.get(x).test(value))
+                ret.set(patternIds.get(x));
+        }
+        return ret;
+    }
+}
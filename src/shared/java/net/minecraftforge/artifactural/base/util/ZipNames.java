@@ -0,0 +1,85 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes zip entry names the same way on every path that reads jars. Names flagged as UTF-8 are always UTF-8,
+ * other names are UTF-8 when they are valid UTF-8 and CP437, the format's original encoding, otherwise.
+ *
+ * {@link RawZipFile} decodes names with this directly, pass {@link #CHARSET} to {@link java.util.zip.ZipInputStream} to get the same names from it.
+ */
+public class ZipNames {
+    // Not every runtime ships CP437
+    private static final Charset CP437 = Charset.isSupported("IBM437") ? Charset.forName("IBM437") : StandardCharsets.ISO_8859_1;
+
+    /**
+     * Decode only charset for names without the UTF-8 flag, the JDK decodes flagged names as UTF-8 by itself.
+     */
+    public static final Charset CHARSET = new Charset("x-artifactural-zip-names", null) {
+        @Override
+        public boolean contains(Charset cs) {
+            return false;
+        }
+
+        @Override
+        public boolean canEncode() {
+            return false;
+        }
+
+        @Override
+        public CharsetEncoder newEncoder() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CharsetDecoder newDecoder() {
+            return new CharsetDecoder(this, 1, 1) {
+                @Override
+                protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+                    // Names are always decoded in one piece, which is what lets the whole name pick the charset
+                    String name = ZipNames.decode(in.duplicate());
+                    if (out.remaining() < name.length())
+                        return CoderResult.OVERFLOW;
+                    out.put(name);
+                    in.position(in.limit());
+                    return CoderResult.UNDERFLOW;
+                }
+            };
+        }
+    };
+
+    static String decode(ByteBuffer name) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(name.duplicate()).toString();
+        } catch (CharacterCodingException e) {
+            return CP437.decode(name).toString();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Artifactural
+ * Copyright (c) 2018-2021.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.artifactural.base.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MavenPathTest {
+    // The pattern GradleRepositoryAdapter used before MavenPath replaced it
+    private static final Pattern URL_PATTERN = Pattern.compile(
+            "^(?<group>\\S+(?:/\\S+)*)/(?<name>\\S+)/(?<version>\\S+)/" +
+                    "\\2-\\3(?:-(?<classifier>[^.\\s]+))?\\.(?<extension>\\S+)$");
+
+    private static final char[] ALPHABET = { 'a', 'b', '1', '-', '.', '/', ' ' };
+    private static final String[] PARTS = { "a", "ab", "a-b", "a.b", "1.0", "1.0-SNAPSHOT", "-", ".", "", "x y", "a\tb" };
+
+    @Test
+    public void agreesWithRegexOnCorpus() {
+        int count = 0;
+        for (String group : new String[] { "g", "g/h", "g.h/i", "g/", "/g", "" }) {
+            for (String name : PARTS) {
+                for (String version : PARTS) {
+                    for (String path : files(name, version)) {
+                        assertAgrees(group + '/' + name + '/' + version + '/' + path);
+                        count++;
+                    }
+                }
+            }
+        }
+        assertEquals(6 * PARTS.length * PARTS.length * files("", "").size(), count);
+    }
+
+    @Test
+    public void agreesWithRegexOnRandomPaths() {
+        // Paths shaped like artifact paths from a few characters, with one character changed in some, so the back references hit and miss
+        Random random = new Random(42);
+        int matched = 0;
+        for (int x = 0; x < 200000; x++) {
+            String name = random(random, 1 + random.nextInt(4));
+            String version = random(random, 1 + random.nextInt(4));
+            String file = name + '-' + version + (random.nextBoolean() ? '-' + random(random, random.nextInt(3)) : "") + '.' + random(random, random.nextInt(4));
+            char[] path = (random(random, 1 + random.nextInt(6)) + '/' + name + '/' + version + '/' + file).toCharArray();
+            if (random.nextInt(4) == 0)
+                path[random.nextInt(path.length)] = ALPHABET[random.nextInt(ALPHABET.length)];
+            if (assertAgrees(new String(path)))
+                matched++;
+        }
+        assertTrue(matched > 10000, "Only " + matched + " paths matched");
+    }
+
+    @Test
+    public void classifiesSidecars() {
+        assertEquals(MavenPath.Kind.ARTIFACT, MavenPath.parse("net/minecraftforge/forge/1.0/forge-1.0-sources.jar").getKind());
+        assertEquals(MavenPath.Kind.POM, MavenPath.parse("net/minecraftforge/forge/1.0/forge-1.0.pom").getKind());
+        assertEquals(MavenPath.Kind.MODULE, MavenPath.parse("net/minecraftforge/forge/1.0/forge-1.0.module").getKind());
+        assertEquals(MavenPath.Kind.DIRECTORY, MavenPath.parse("net/minecraftforge/forge/").getKind());
+        assertEquals(MavenPath.Kind.UNKNOWN, MavenPath.parse("net/minecraftforge/forge/1.0/other-1.0.jar").getKind());
+
+        MavenPath checksum = MavenPath.parse("net/minecraftforge/forge/1.0/forge-1.0.jar.sha1");
+        assertEquals(MavenPath.Kind.CHECKSUM, checksum.getKind());
+        assertEquals("jar", checksum.toChecksummedIdentifier().getExtension());
+
+        MavenPath metadata = MavenPath.parse("net/minecraftforge/forge/maven-metadata.xml");
+        assertEquals(MavenPath.Kind.METADATA, metadata.getKind());
+        assertEquals("net.minecraftforge", metadata.getGroup());
+        assertEquals("forge", metadata.getName());
+        assertNull(metadata.getVersion());
+    }
+
+    private static String random(Random random, int length) {
+        char[] ret = new char[length];
+        for (int x = 0; x < length; x++)
+            ret[x] = ALPHABET[random.nextInt(ALPHABET.length)];
+        return new String(ret);
+    }
+
+    // File names built from the name and version, matching or almost matching the '\2-\3' back reference
+    private static List<String> files(String name, String version) {
+        List<String> ret = new ArrayList<>();
+        for (String base : new String[] { name + '-' + version, name + version, name + '-' + version + '-', 'x' + name + '-' + version }) {
+            for (String suffix : new String[] { ".jar", "-sources.jar", "-a.b.jar", ".jar.sha1", "-.jar", ".", "", "-c", ". x" })
+                ret.add(base + suffix);
+        }
+        return ret;
+    }
+
+    private static boolean assertAgrees(String path) {
+        Matcher matcher = URL_PATTERN.matcher(path);
+        MavenPath parsed = MavenPath.parse(path);
+        boolean matches = matcher.matches();
+        assertEquals(matches, parsed.isVersioned(), path);
+        if (!matches)
+            return false;
+        assertEquals(matcher.group("group").replace('/', '.'), parsed.getGroup(), path);
+        assertEquals(matcher.group("name"), parsed.getName(), path);
+        assertEquals(matcher.group("version"), parsed.getVersion(), path);
+        assertEquals(matcher.group("classifier"), parsed.getClassifier(), path);
+        assertEquals(matcher.group("extension"), parsed.getExtension(), path);
+        return true;
+    }
+}